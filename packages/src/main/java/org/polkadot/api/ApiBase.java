@@ -2,7 +2,6 @@ package org.polkadot.api;
 
 
 import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
 import com.onehilltech.promises.Promise;
 import io.reactivex.Observable;
 import org.apache.commons.collections4.CollectionUtils;
@@ -11,6 +10,8 @@ import org.apache.commons.lang3.tuple.Pair;
 import org.polkadot.api.Types.*;
 import org.polkadot.api.derive.Index;
 import org.polkadot.api.derive.Types.DeriveRealFunction;
+import org.polkadot.api.derive.balances.FeesCache;
+import org.polkadot.api.derive.chain.HeaderChain;
 import org.polkadot.api.rx.ApiRx;
 import org.polkadot.common.EventEmitter;
 import org.polkadot.common.ExecutorsManager;
@@ -35,19 +36,28 @@ import org.polkadot.types.primitive.Null;
 import org.polkadot.types.primitive.StorageKey;
 import org.polkadot.types.rpc.RuntimeVersion;
 import org.polkadot.types.type.Event;
+import org.polkadot.types.type.EventFilter;
+import org.polkadot.types.type.EventRecord;
 import org.polkadot.types.type.Hash;
+import org.polkadot.types.type.Header;
 import org.polkadot.utils.Utils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 import static org.polkadot.type.extrinsics.FromMetadata.fromMetadata;
 
 public abstract class ApiBase<ApplyResult> implements Types.ApiBaseInterface<ApplyResult> {
 
+    private static final Logger logger = LoggerFactory.getLogger(ApiBase.class);
 
     public enum ApiType {
         RX, PROMISE
@@ -55,10 +65,15 @@ public abstract class ApiBase<ApplyResult> implements Types.ApiBaseInterface<App
 
     public static final int KEEPALIVE_INTERVAL = 15000;
 
+    /**
+     * The default number of keys sent in one state_subscribeStorage by queryMulti
+     */
+    public static final int DEFAULT_QUERY_MULTI_BATCH_SIZE = 256;
+
 
     private Derive derive;
     private EventEmitter eventemitter;
-    private boolean isReady;
+    private volatile boolean isReady;
 
     /**
      * An external signer which will be used to sign extrinsic when account passed in is not KeyringPair
@@ -71,7 +86,7 @@ public abstract class ApiBase<ApplyResult> implements Types.ApiBaseInterface<App
     protected DecoratedRpc<ApplyResult> decoratedRpc;
 
     protected ApiOptions options = new ApiOptions();
-    private ApiInterfacePromiseDefault promisApi = new ApiInterfacePromiseDefault();
+    private ApiInterfacePromiseDefault promisApi = new ApiInterfacePromiseDefault(this);
 
     /**
      * The type of this API instance, either 'rxjs' or 'promise'
@@ -99,6 +114,16 @@ public abstract class ApiBase<ApplyResult> implements Types.ApiBaseInterface<App
     private Method.ModulesWithMethods oriExtrinsics;
     private SubmittableExtrinsics extrinsics;
 
+    private volatile StorageCache storageCache;
+    private Promise storageCacheHeads;
+    private Promise runtimeVersions;
+    // the runtime (cache key) being loaded after an upgrade, null when none
+    private String upgrading;
+    private final NonceManager nonceManager;
+    private ExtrinsicTracker extrinsicTracker;
+    private FeesCache feesCache;
+    private HeaderChain headerChain;
+
     /**
      * Create an instance of the class
      *
@@ -152,6 +177,14 @@ public abstract class ApiBase<ApplyResult> implements Types.ApiBaseInterface<App
             this.registerTypes(options.types);
         }
 
+        if (options.getStorageCacheSize() > 0) {
+            this.setStorageCacheSize(options.getStorageCacheSize());
+        }
+
+        this.nonceManager = options.isManageNonces()
+                ? new NonceManager(address -> this.promisApi.query().section("system").function("accountNonce").call(address))
+                : null;
+
         this.init();
     }
 
@@ -165,6 +198,11 @@ public abstract class ApiBase<ApplyResult> implements Types.ApiBaseInterface<App
         Metadata runtimeMetadata;
         RuntimeVersion runtimeVersion;
         Signer signer;
+        ApiBase<?> base;
+
+        ApiInterfacePromiseDefault(ApiBase<?> base) {
+            this.base = base;
+        }
 
         @Override
         public Hash getGenesisHash() {
@@ -201,6 +239,31 @@ public abstract class ApiBase<ApplyResult> implements Types.ApiBaseInterface<App
             return signer;
         }
 
+        @Override
+        public Promise queryMulti(List<Pair<StorageKey.StorageFunction, Object>> calls) {
+            return this.base.queryMulti(calls, null, this.base.promiseOnCall);
+        }
+
+        @Override
+        public Promise<IRpcFunction.Unsubscribe<Promise>> subscribeDiffs(List<Pair<StorageKey.StorageFunction, Object>> calls, long window, Consumer<List<StorageDiffSubscription.Diff>> callback) {
+            return this.base.subscribeDiffs(calls, window, callback);
+        }
+
+        @Override
+        public NonceManager getNonceManager() {
+            return this.base.nonceManager;
+        }
+
+        @Override
+        public FeesCache getFeesCache() {
+            return this.base.getFeesCache();
+        }
+
+        @Override
+        public HeaderChain getHeaderChain() {
+            return this.base.getHeaderChain();
+        }
+
     }
 
     private OnCallDefinition<Observable> rxOnCall = new OnCallDefinition<Observable>() {
@@ -324,25 +387,41 @@ public abstract class ApiBase<ApplyResult> implements Types.ApiBaseInterface<App
 
         // only load from on-chain if we are not a clone (default path), alternatively
         // just use the values from the source instance provided
-        return Promise.all(
-                this.options.source == null || !this.options.source.isReady
-                        ? new Promise[]{ApiBase.this.rpcBase.state().function("getMetadata").invoke(),
-                        ApiBase.this.rpcBase.chain().function("getRuntimeVersion").invoke(),
-                        ApiBase.this.rpcBase.chain().function("getBlockHash").invoke(0)}
-                        : new Promise[]{
-                        Promise.value(this.options.source.runtimeMetadata),
-                        Promise.value(this.options.source.runtimeVersion),
-                        Promise.value(this.options.source.genesisHash)
-                }
-        ).then((results) -> {
+        Promise<List<Object>> meta;
+        if (this.options.source != null && this.options.source.isReady) {
+            meta = Promise.all(
+                    Promise.value(this.options.source.runtimeMetadata),
+                    Promise.value(this.options.source.runtimeVersion),
+                    Promise.value(this.options.source.genesisHash),
+                    Promise.value(new MetadataCache.Entry(this.options.source.runtimeMetadata,
+                            this.options.source.oriStorage, this.options.source.oriExtrinsics))
+            );
+        } else if (this.options.metadataCache != null) {
+            meta = this.loadCachedMeta(this.options.metadataCache);
+        } else {
+            meta = Promise.all(
+                    ApiBase.this.rpcBase.state().function("getMetadata").invoke(),
+                    ApiBase.this.rpcBase.chain().function("getRuntimeVersion").invoke(),
+                    ApiBase.this.rpcBase.chain().function("getBlockHash").invoke(0)
+            );
+        }
+
+        return meta.then((results) -> {
             ApiBase.this.runtimeMetadata = (Metadata) results.get(0);
             ApiBase.this.runtimeVersion = (RuntimeVersion) results.get(1);
             ApiBase.this.genesisHash = (Hash) results.get(2);
+            MetadataCache.Entry cached = results.size() > 3 ? (MetadataCache.Entry) results.get(3) : null;
 
             //    const extrinsics = extrinsicsFromMeta(this.runtimeMetadata.asV0);
             //    const storage = storageFromMeta(this.runtimeMetadata.asV0);
-            Method.ModulesWithMethods modulesWithMethods = fromMetadata(ApiBase.this.runtimeMetadata.asV0());
-            Storage storage = FromMetadata.fromMetadata(ApiBase.this.runtimeMetadata.asV0());
+            Method.ModulesWithMethods modulesWithMethods = cached != null
+                    ? cached.getModulesWithMethods()
+                    : fromMetadata(ApiBase.this.runtimeMetadata.asV0());
+            Storage storage = cached != null
+                    ? this.options.lazyModules ? cached.getLazyStorage() : cached.getStorage()
+                    : this.options.lazyModules
+                    ? FromMetadata.lazyFromMetadata(ApiBase.this.runtimeMetadata.asV0())
+                    : FromMetadata.fromMetadata(ApiBase.this.runtimeMetadata.asV0());
 
             ApiBase.this.oriStorage = storage;
             ApiBase.this.storage = decorateStorage(storage, this::onCall);
@@ -371,6 +450,64 @@ public abstract class ApiBase<ApplyResult> implements Types.ApiBaseInterface<App
         });
     }
 
+    /**
+     * Loads the metadata of the current runtime from the cache, fetching (and caching) it on a miss. The
+     * runtime version is then followed, a runtime upgrade drops the previous runtime and loads the new one.
+     */
+    private Promise<List<Object>> loadCachedMeta(MetadataCache cache) {
+        return Promise.all(
+                this.rpcBase.chain().function("getRuntimeVersion").invoke(),
+                this.rpcBase.chain().function("getBlockHash").invoke(0)
+        ).then(results -> {
+            RuntimeVersion runtimeVersion = (RuntimeVersion) results.get(0);
+            Hash genesisHash = (Hash) results.get(1);
+            String key = MetadataCache.key(genesisHash, runtimeVersion);
+
+            // the metadata is kept as sent by the node, it is not re-encoded
+            MetadataCache.Entry cached = cache.get(key);
+            Promise<MetadataCache.Entry> entry = cached != null
+                    ? Promise.value(cached)
+                    : this.rpcBase.getProvider().send("state_getMetadata", Lists.newArrayList(), null)
+                    .then(metadata -> Promise.value(cache.put(key, Utils.hexToU8a((String) (Object) metadata))));
+
+            return entry.then(loaded -> {
+                synchronized (this) {
+                    if (this.runtimeVersions == null) {
+                        IRpcFunction.SubscribeCallback<RuntimeVersion> onVersion = version -> this.onRuntimeVersion(cache, version);
+                        this.runtimeVersions = this.rpcBase.chain().function("subscribeRuntimeVersion").invoke(onVersion);
+                    }
+                }
+                return Promise.value(Lists.newArrayList(loaded.getMetadata(), runtimeVersion, genesisHash, loaded));
+            });
+        });
+    }
+
+    private void onRuntimeVersion(MetadataCache cache, RuntimeVersion version) {
+        if (this.runtimeVersion == null || this.genesisHash == null) {
+            return;
+        }
+        String current = MetadataCache.key(this.genesisHash, this.runtimeVersion);
+        String upgraded = MetadataCache.key(this.genesisHash, version);
+        synchronized (this) {
+            // the runtime version is only replaced once the metadata is loaded
+            if (current.equals(upgraded) || upgraded.equals(this.upgrading)) {
+                return;
+            }
+            this.upgrading = upgraded;
+        }
+
+        logger.info("Runtime upgraded from {} to {}, reloading the metadata", current, upgraded);
+        cache.invalidate(current);
+        this.loadMeta().then(loaded -> {
+            synchronized (this) {
+                if (upgraded.equals(this.upgrading)) {
+                    this.upgrading = null;
+                }
+            }
+            return null;
+        });
+    }
+
     private Pair<IRpcFunction.SubscribeCallback, Object[]> parseArgs(Object... _args) {
         IRpcFunction.SubscribeCallback callback = null;
         Object[] args = null;
@@ -419,7 +556,9 @@ public abstract class ApiBase<ApplyResult> implements Types.ApiBaseInterface<App
                                         //TODO 2019-06-16 17:32 just once
                                         Promise call = function.call(params);
                                         return call.then(result -> {
-                                            finalCallback.callback(result);
+                                            if (finalCallback != null) {
+                                                finalCallback.callback(result);
+                                            }
                                             return Promise.value(result);
                                         });
                                     }
@@ -441,25 +580,30 @@ public abstract class ApiBase<ApplyResult> implements Types.ApiBaseInterface<App
 
 
     private <ApplyResult> SubmittableExtrinsics<ApplyResult> decorateExtrinsics(Method.ModulesWithMethods extrinsics, OnCallDefinition<ApplyResult> onCallDefinition) {
+        if (this.options.lazyModules) {
+            return new LazySubmittableExtrinsics<>(extrinsics.keySet(),
+                    sectionName -> decorateExtrinsicSection(extrinsics.get(sectionName), onCallDefinition));
+        }
+
         SubmittableExtrinsics ret = new SubmittableExtrinsics();
 
         for (String sectionName : extrinsics.keySet()) {
-            Method.Methods section = extrinsics.get(sectionName);
-
-            SubmittableModuleExtrinsics submittableModuleExtrinsics = new SubmittableModuleExtrinsics();
+            ret.addSection(sectionName, decorateExtrinsicSection(extrinsics.get(sectionName), onCallDefinition));
+        }
 
-            for (String methodName : section.keySet()) {
-                Method.MethodFunction methodFunction = section.get(methodName);
+        return ret;
+    }
 
-                SubmittableExtrinsicFunction submittableExtrinsicFunction = decorateExtrinsicEntry(methodFunction, onCallDefinition);
-                submittableModuleExtrinsics.addFunction(methodName, submittableExtrinsicFunction);
-            }
+    private <ApplyResult> SubmittableModuleExtrinsics decorateExtrinsicSection(Method.Methods section, OnCallDefinition<ApplyResult> onCallDefinition) {
+        SubmittableModuleExtrinsics submittableModuleExtrinsics = new SubmittableModuleExtrinsics();
 
-            ret.addSection(sectionName, submittableModuleExtrinsics);
+        for (String methodName : section.keySet()) {
+            Method.MethodFunction methodFunction = section.get(methodName);
 
+            SubmittableExtrinsicFunction submittableExtrinsicFunction = decorateExtrinsicEntry(methodFunction, onCallDefinition);
+            submittableModuleExtrinsics.addFunction(methodName, submittableExtrinsicFunction);
         }
-
-        return ret;
+        return submittableModuleExtrinsics;
     }
 
     private <ApplyResult> SubmittableExtrinsicFunction<ApplyResult> decorateExtrinsicEntry(Method.MethodFunction method, OnCallDefinition<ApplyResult> onCallDefinition) {
@@ -479,7 +623,8 @@ public abstract class ApiBase<ApplyResult> implements Types.ApiBaseInterface<App
 
             @Override
             public SubmittableExtrinsic call(Object... params) {
-                return SubmittableExtrinsic.createSubmittableExtrinsic(ApiBase.this.type, promisApi, method.apply(params), null, onCallDefinition);
+                // encoded by the (cached) encoder of the function, not through the codecs of every argument
+                return SubmittableExtrinsic.createSubmittableExtrinsic(ApiBase.this.type, promisApi, method.getEncoder().method(params), null, onCallDefinition);
             }
         };
         return ret;
@@ -566,6 +711,13 @@ public abstract class ApiBase<ApplyResult> implements Types.ApiBaseInterface<App
         return this.type;
     }
 
+    /**
+     * True once the metadata is loaded and the `ready` event emitted
+     */
+    public boolean isReady() {
+        return this.isReady;
+    }
+
     /**
      * Attach an eventemitter handler to listen to a specific event
      *
@@ -608,21 +760,28 @@ public abstract class ApiBase<ApplyResult> implements Types.ApiBaseInterface<App
     }
 
     private <ApplyResult> QueryableStorage<ApplyResult> decorateStorage(Storage storage, OnCallDefinition<ApplyResult> onCallDefinition) {
+        if (this.options.lazyModules) {
+            return new LazyQueryableStorage<>(storage.sectionNames(),
+                    sectionName -> decorateStorageSection(storage.section(sectionName), onCallDefinition));
+        }
+
         QueryableStorage<ApplyResult> queryableStorage = new QueryableStorage<>();
         for (String sectionName : storage.sectionNames()) {
+            queryableStorage.addSection(sectionName, decorateStorageSection(storage.section(sectionName), onCallDefinition));
+        }
+        return queryableStorage;
+    }
 
-            QueryableModuleStorage<ApplyResult> moduleStorage = new QueryableModuleStorage<>();
+    private <ApplyResult> QueryableModuleStorage<ApplyResult> decorateStorageSection(ModuleStorage section, OnCallDefinition<ApplyResult> onCallDefinition) {
+        QueryableModuleStorage<ApplyResult> moduleStorage = new QueryableModuleStorage<>();
 
-            ModuleStorage section = storage.section(sectionName);
-            for (String functionName : section.functionNames()) {
-                StorageKey.StorageFunction function = section.function(functionName);
-                QueryableStorageFunction<ApplyResult> storageFunction = decorateStorageEntry(function, onCallDefinition);
+        for (String functionName : section.functionNames()) {
+            StorageKey.StorageFunction function = section.function(functionName);
+            QueryableStorageFunction<ApplyResult> storageFunction = decorateStorageEntry(function, onCallDefinition);
 
-                moduleStorage.addFunction(functionName, storageFunction);
-            }
-            queryableStorage.addSection(sectionName, moduleStorage);
+            moduleStorage.addFunction(functionName, storageFunction);
         }
-        return queryableStorage;
+        return moduleStorage;
     }
 
     protected static abstract class StorageOnCallFunction implements OnCallFunction {
@@ -633,12 +792,12 @@ public abstract class ApiBase<ApplyResult> implements Types.ApiBaseInterface<App
         QueryableStorageFunction<ApplyResult> queryableStorageFunction = new QueryableStorageFunction<ApplyResult>() {
             @Override
             public byte[] apply(Object... args) {
-                return new byte[0];
+                return storageMethod.apply(args);
             }
 
             @Override
             public Object toJson() {
-                return null;
+                return storageMethod.toJson();
             }
 
             @Override
@@ -651,6 +810,12 @@ public abstract class ApiBase<ApplyResult> implements Types.ApiBaseInterface<App
                     return ApiBase.this.decorateStorageEntryLinked(storageMethod, callback, onCallDefinition);
                 }
 
+                // without a callback the promise api only wants the current value, a single
+                // state_getStorage replaces the subscribe, first notification & unsubscribe
+                if (callback == null && !(ApiBase.this instanceof ApiRx)) {
+                    return ApiBase.this.readStorage(storageMethod, args, null, onCallDefinition);
+                }
+
                 IRpcModule rpc = ApiBase.this.rpcBase;
                 IRpc.RpcInterfaceSection state = rpc.state();
                 IRpcFunction subscribeStorage = state.function("subscribeStorage");
@@ -699,22 +864,7 @@ public abstract class ApiBase<ApplyResult> implements Types.ApiBaseInterface<App
 
             @Override
             public ApplyResult at(Object hash, Object arg) {
-                IRpcModule rpc = ApiBase.this.rpcBase;
-                IRpc.RpcInterfaceSection state = rpc.state();
-                IRpcFunction getStorage = state.function("getStorage");
-
-                return onCallDefinition.apply(
-                        new OnCallFunction() {
-                            @Override
-                            public Promise apply(Object... params) {
-                                return getStorage.invoke(new Object[]{storageMethod, params}, hash);
-                            }
-                        },
-                        Lists.newArrayList(arg),
-                        false,
-                        null
-                );
-                //return getStorage.invoke(new Object[]{storageMethod, arg}, hash);
+                return ApiBase.this.readStorage(storageMethod, arg == null ? new Object[0] : new Object[]{arg}, hash, onCallDefinition);
             }
 
             @Override
@@ -727,7 +877,7 @@ public abstract class ApiBase<ApplyResult> implements Types.ApiBaseInterface<App
                         new OnCallFunction() {
                             @Override
                             public Promise apply(Object... params) {
-                                return getStorageHash.invoke(new Object[]{storageMethod, params});
+                                return getStorageHash.invoke((Object) new Object[]{storageMethod, params});
                             }
                         },
                         Lists.newArrayList(arg),
@@ -741,6 +891,15 @@ public abstract class ApiBase<ApplyResult> implements Types.ApiBaseInterface<App
                 return Utils.u8aToHex(Utils.compactStripLength(storageMethod.apply(arg)).getRight());
             }
 
+            @Override
+            public Promise<IRpcFunction.Unsubscribe<Promise>> subscribeDiffs(List<?> args, long window, Consumer<List<StorageDiffSubscription.Diff>> callback) {
+                List<Pair<StorageKey.StorageFunction, Object>> calls = Lists.newArrayList();
+                for (Object arg : args) {
+                    calls.add(Pair.of(storageMethod, arg));
+                }
+                return ApiBase.this.subscribeDiffs(calls, window, callback);
+            }
+
             @Override
             public ApplyResult size(Object arg) {
                 IRpcModule rpc = ApiBase.this.rpcBase;
@@ -751,7 +910,7 @@ public abstract class ApiBase<ApplyResult> implements Types.ApiBaseInterface<App
                         new OnCallFunction() {
                             @Override
                             public Promise apply(Object... params) {
-                                return getStorageSize.invoke(new Object[]{storageMethod, params});
+                                return getStorageSize.invoke((Object) new Object[]{storageMethod, params});
                             }
                         },
                         Lists.newArrayList(arg),
@@ -762,84 +921,384 @@ public abstract class ApiBase<ApplyResult> implements Types.ApiBaseInterface<App
 
         };
 
+        // the decorated entry can be used wherever the storage function is expected, e.g. to create keys
+        queryableStorageFunction.setMeta(storageMethod.getMeta());
+        queryableStorageFunction.setMethod(storageMethod.getMethod());
+        queryableStorageFunction.setSection(storageMethod.getSection());
+        queryableStorageFunction.setHeadKey(storageMethod.getHeadKey());
+
         return queryableStorageFunction;
     }
 
 
-    // retrieve a value based on the key, iterating if it has a next entry. Since
-    // entries can be re-linked in the middle of a list, we subscribe here to make
-    // sure we catch any updates, no matter the list position
-    private Promise getNext(Codec head, Codec key, StorageKey.StorageFunction storageMethod) {
+    /**
+     * Queries multiple storage entries, each call being a storage function (e.g. `api.query().section("balances").function("freeBalance")`)
+     * with its argument (null when it takes none, an Object[] when it takes more than one).
+     * The keys are sent in batches of `queryMultiBatchSize` keys, one state_subscribeStorage per batch, and every
+     * value is decoded with the output type of its own storage function. The results follow the order of the calls.
+     * <p>
+     * **Example**
+     * ```java
+     * api.queryMulti(Lists.newArrayList(
+     * Pair.of(api.query().section("balances").function("freeBalance"), alice),
+     * Pair.of(api.query().section("system").function("accountNonce"), alice)
+     * )).then((results) -> {
+     * System.out.println(results);
+     * });
+     * ```
+     */
+    public ApplyResult queryMulti(List<Pair<StorageKey.StorageFunction, Object>> calls) {
+        return this.queryMulti(calls, null, this::onCall);
+    }
 
-        Map<Codec, Pair<Codec, Linkage<Codec>>> result = Maps.newLinkedHashMap();
-        //BehaviorSubject<LinkageResult>;
-        final Promise[] subject = {null};
+    /**
+     * Subscribes to multiple storage entries, the callback receives the values of all the calls every time one of them changes
+     */
+    public ApplyResult queryMulti(List<Pair<StorageKey.StorageFunction, Object>> calls, IRpcFunction.SubscribeCallback callback) {
+        return this.queryMulti(calls, callback, this::onCall);
+    }
 
-        IRpcModule rpc = ApiBase.this.rpcBase;
-        IRpc.RpcInterfaceSection state = rpc.state();
+    private <ApplyResult> ApplyResult queryMulti(List<Pair<StorageKey.StorageFunction, Object>> calls, IRpcFunction.SubscribeCallback callback, OnCallDefinition<ApplyResult> onCallDefinition) {
+        List<Object[]> keys = Lists.newArrayListWithCapacity(calls.size());
+        for (Pair<StorageKey.StorageFunction, Object> call : calls) {
+            Object arg = call.getRight();
+            Object[] args = arg == null
+                    ? new Object[0]
+                    : arg instanceof Object[] ? (Object[]) arg : new Object[]{arg};
+            keys.add(new Object[]{call.getLeft(), args});
+        }
+        List<List<Object[]>> batches = Lists.partition(keys, this.getQueryMultiBatchSize());
 
-        IRpcFunction subscribeStorage = state.function("subscribeStorage");
+        return onCallDefinition.apply(
+                new OnCallFunction() {
+                    @Override
+                    public Promise apply(Object... params) {
+                        if (ArrayUtils.isNotEmpty(params) && params[params.length - 1] instanceof IRpcFunction.SubscribeCallback) {
+                            return subscribeMulti(batches, (IRpcFunction.SubscribeCallback) params[params.length - 1]);
+                        }
+                        return readMulti(batches);
+                    }
+                },
+                Lists.newArrayList(),
+                ApiBase.this instanceof ApiRx,
+                callback
+        );
+    }
+
+    private Promise readMulti(List<List<Object[]>> batches) {
+        if (batches.isEmpty()) {
+            return Promise.value(Lists.newArrayList());
+        }
+        IRpcFunction subscribeStorage = this.rpcBase.state().function("subscribeStorage");
 
-        return subscribeStorage.invoke(
-                new Object[]{
-                        new Object[]{
-                                new Object[]{storageMethod, new Object[]{key}}
+        Promise[] reads = new Promise[batches.size()];
+        for (int i = 0; i < reads.length; i++) {
+            reads[i] = subscribeStorage.invoke((Object) batches.get(i).toArray());
+        }
+        return Promise.all(reads)
+                .then(results -> {
+                    List<Object> ret = Lists.newArrayList();
+                    for (Object result : results) {
+                        ret.addAll((List) result);
+                    }
+                    return Promise.value(ret);
+                });
+    }
+
+    private Promise subscribeMulti(List<List<Object[]>> batches, IRpcFunction.SubscribeCallback callback) {
+        IRpcFunction subscribeStorage = this.rpcBase.state().function("subscribeStorage");
+
+        // the latest values per batch, updates only carry the keys that changed
+        List<Object>[] latest = new List[batches.size()];
+        AtomicInteger pending = new AtomicInteger(batches.size());
+
+        Promise[] subscriptions = new Promise[batches.size()];
+        for (int i = 0; i < subscriptions.length; i++) {
+            int batch = i;
+            IRpcFunction.SubscribeCallback update = (result) -> {
+                List<Object> ret = null;
+                synchronized (latest) {
+                    List<Object> values = (List<Object>) result;
+                    if (latest[batch] == null) {
+                        latest[batch] = Lists.newArrayList(values);
+                        pending.decrementAndGet();
+                    } else {
+                        for (int j = 0; j < values.size(); j++) {
+                            if (values.get(j) != null) {
+                                latest[batch].set(j, values.get(j));
+                            }
+                        }
+                    }
+                    if (pending.get() == 0) {
+                        ret = Lists.newArrayList();
+                        for (List<Object> batchValues : latest) {
+                            ret.addAll(batchValues);
                         }
+                    }
                 }
-        ).then((data) -> {
-            List<Object> objects = CodecUtils.arrayLikeToList(data);
-            objects = CodecUtils.arrayLikeToList(objects.get(0));
+                if (ret != null) {
+                    callback.callback(ret);
+                }
+            };
+            subscriptions[i] = subscribeStorage.invoke(batches.get(i).toArray(), update);
+        }
 
-            Linkage<Codec> linkage = (Linkage<Codec>) objects.get(1);
+        return Promise.all(subscriptions)
+                .then(results -> Promise.value(
+                        (IRpcFunction.Unsubscribe<Promise>) () -> {
+                            Promise[] unsubscribes = new Promise[results.size()];
+                            for (int i = 0; i < unsubscribes.length; i++) {
+                                unsubscribes[i] = ((IRpcFunction.Unsubscribe<Promise>) results.get(i)).unsubscribe();
+                            }
+                            return Promise.all(unsubscribes);
+                        }));
+    }
 
-            result.put(key, Pair.of((Codec) objects.get(0), (Linkage<Codec>) objects.get(1)));
+    /**
+     * Subscribes to the storage entries (function, argument(s), as for queryMulti), reporting only the changes
+     * of the entries, see {@link StorageDiffSubscription}
+     *
+     * @param window the time (in milliseconds) to coalesce the changes over, 0 to report every notification
+     */
+    public Promise<IRpcFunction.Unsubscribe<Promise>> subscribeDiffs(List<Pair<StorageKey.StorageFunction, Object>> calls, long window, Consumer<List<StorageDiffSubscription.Diff>> callback) {
+        List<StorageKey> keys = Lists.newArrayList();
+        for (Pair<StorageKey.StorageFunction, Object> call : calls) {
+            Object arg = call.getRight();
+            Object[] args = arg == null
+                    ? new Object[0]
+                    : arg instanceof Object[] ? (Object[]) arg : new Object[]{arg};
+            keys.add(new StorageKey(new Object[]{call.getLeft(), args}));
+        }
+        return new StorageDiffSubscription(this.rpcBase, keys, window, callback).subscribe();
+    }
 
-            // iterate from this key to the children, constructing
-            // entries for all those found and available
-            if (linkage.getNext().isSome()) {
-                return getNext(head, linkage.getNext().unwrap(), storageMethod);
-            }
+    /**
+     * The number of keys sent in one state_subscribeStorage by queryMulti
+     */
+    public int getQueryMultiBatchSize() {
+        return this.options.getQueryMultiBatchSize();
+    }
 
-            List<Codec> keys = Lists.newArrayList();
-            List<Codec> values = Lists.newArrayList();
-            Codec nextKey = head;
+    public void setQueryMultiBatchSize(int queryMultiBatchSize) {
+        assert queryMultiBatchSize > 0 : "Expected a positive batch size, found " + queryMultiBatchSize;
+        this.options.setQueryMultiBatchSize(queryMultiBatchSize);
+    }
 
-            // loop through the results collected, starting at the head an re-creating
-            // the list. Our map may have old entries, based on the linking these will
-            // not be returned in the final result
-            while (nextKey != null) {
-                Pair<Codec, Linkage<Codec>> entry = result.get(nextKey);
+    /**
+     * Iterates the entries of a linked map (e.g. `staking.validators`) at the latest block, see {@link LinkedMapIterator}
+     */
+    public LinkedMapIterator iterateLinkedMap(StorageKey.StorageFunction storageMethod) {
+        return this.iterateLinkedMap(storageMethod, LinkedMapIterator.DEFAULT_WINDOW, null);
+    }
 
-                if (entry == null) {
-                    break;
-                }
+    /**
+     * @param window    the maximum number of entries read ahead of the consumer
+     * @param blockHash the block to read the map at, null for the latest block
+     */
+    public LinkedMapIterator iterateLinkedMap(StorageKey.StorageFunction storageMethod, int window, Object blockHash) {
+        return new LinkedMapIterator(this.rpcBase, storageMethod, window, blockHash);
+    }
 
-                Codec item = entry.getLeft();
-                Linkage<Codec> linka = entry.getRight();
-                keys.add(nextKey);
-                values.add(item);
+    /**
+     * Scans the history of the storage entries (function, argument(s)) with state_queryStorage, see {@link StorageRangeScanner}
+     */
+    public StorageRangeScanner scanStorage(List<Pair<StorageKey.StorageFunction, Object>> calls) {
+        return this.scanStorage(calls, StorageRangeScanner.DEFAULT_CHUNK_SIZE, StorageRangeScanner.DEFAULT_CONCURRENCY);
+    }
 
-                if (linka.getNext() != null) {
-                    nextKey = (Codec) linka.getNext().unwrapOr(null);
-                }
-            }
+    /**
+     * @param chunkSize   the number of blocks in one state_queryStorage
+     * @param concurrency the maximum number of state_queryStorage in flight
+     */
+    public StorageRangeScanner scanStorage(List<Pair<StorageKey.StorageFunction, Object>> calls, int chunkSize, int concurrency) {
+        return new StorageRangeScanner(this.rpcBase, calls, chunkSize, concurrency);
+    }
 
+    /**
+     * Subscribes to the events of some (section, method), the other events are not decoded, see {@link EventSubscription}
+     */
+    public Promise<IRpcFunction.Unsubscribe<Promise>> subscribeEvents(List<Pair<String, String>> events, Consumer<List<EventRecord>> callback) {
+        StorageKey.StorageFunction systemEvents = this.promisApi.query().section("system").function("events");
+        return new EventSubscription(this.rpcBase, systemEvents, new EventFilter(events), callback).subscribe();
+    }
 
-            Linkage.LinkageResult nextResult = values.isEmpty()
-                    ? new Linkage.LinkageResult(
-                    TypesUtils.getConstructorCodec(Null.class), Lists.newArrayList(),
-                    TypesUtils.getConstructorCodec(Null.class), Lists.newArrayList())
-                    : new Linkage.LinkageResult(
-                    TypesUtils.getConstructorCodec(keys.get(0).getClass()), Lists.newArrayList(keys),
-                    TypesUtils.getConstructorCodec(values.get(0).getClass()), Lists.newArrayList(values));
+    /**
+     * Follows the chain, handing the decoded blocks over in order, see {@link BlockIngestion}
+     *
+     * @param finalized follow the finalized heads, else the new (best) heads
+     * @param events    read the events of every block
+     */
+    public BlockIngestion ingestBlocks(boolean finalized, boolean events) {
+        return this.ingestBlocks(finalized, events, BlockIngestion.DEFAULT_CONCURRENCY, BlockIngestion.DEFAULT_CAPACITY);
+    }
 
-            if (subject[0] != null) {
-                subject[0].then((r) -> Promise.value(nextResult));
-            } else {
-                subject[0] = Promise.value(nextResult);
-            }
-            return subject[0];
-        });
+    /**
+     * @param concurrency the maximum number of blocks fetched at a time
+     * @param capacity    the maximum number of blocks fetched and not yet consumed
+     */
+    public BlockIngestion ingestBlocks(boolean finalized, boolean events, int concurrency, int capacity) {
+        StorageKey.StorageFunction systemEvents = events
+                ? this.promisApi.query().section("system").function("events")
+                : null;
+        return new BlockIngestion(this.rpcBase, finalized, systemEvents, concurrency, capacity, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Fetches ranges of historical blocks, see {@link BlockBackfill}
+     *
+     * @param providers the nodes to fetch from, null for the provider of the api
+     * @param events    read the events of every block
+     */
+    public BlockBackfill backfill(List<IProvider> providers, boolean events) {
+        return this.backfill(providers, events, BlockBackfill.DEFAULT_BATCH_SIZE, BlockBackfill.DEFAULT_CONCURRENCY);
+    }
+
+    /**
+     * @param batchSize   the number of blocks in one JSON-RPC batch
+     * @param concurrency the maximum number of batches fetched and not yet consumed
+     */
+    public BlockBackfill backfill(List<IProvider> providers, boolean events, int batchSize, int concurrency) {
+        StorageKey.StorageFunction systemEvents = events
+                ? this.promisApi.query().section("system").function("events")
+                : null;
+        return new BlockBackfill(providers == null ? Lists.newArrayList(this.rpcBase.getProvider()) : providers,
+                systemEvents, batchSize, concurrency, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * The cache of storage reads, null when not enabled
+     */
+    public StorageCache getStorageCache() {
+        return this.storageCache;
+    }
+
+    /**
+     * A pipeline submitting many extrinsics, see {@link SubmissionPipeline}. The nonces are handed out by the nonce
+     * manager of the api when enabled, by a nonce manager of the pipeline otherwise.
+     *
+     * @param window the maximum number of submissions waiting for the node
+     * @param track  follow the extrinsics until finalized, with the extrinsic tracker of the api
+     */
+    public SubmissionPipeline submissionPipeline(int window, boolean track) {
+        NonceManager nonceManager = this.nonceManager != null
+                ? this.nonceManager
+                : new NonceManager(address -> this.promisApi.query().section("system").function("accountNonce").call(address));
+        return new SubmissionPipeline(this.promisApi, nonceManager, window, track ? this.getExtrinsicTracker() : null, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * The tracker following the extrinsics until finalized (with their events), without a watch subscription per
+     * extrinsic, see {@link ExtrinsicTracker}
+     */
+    public synchronized ExtrinsicTracker getExtrinsicTracker() {
+        if (this.extrinsicTracker == null) {
+            this.extrinsicTracker = new ExtrinsicTracker(this.promisApi, true, true, ExtrinsicTracker.DEFAULT_TIMEOUT);
+        }
+        return this.extrinsicTracker;
+    }
+
+    /**
+     * The last headers of the best chain, shared with the chain derives, see {@link HeaderChain}. The heads are
+     * followed from the first call.
+     */
+    public synchronized HeaderChain getHeaderChain() {
+        if (this.headerChain == null) {
+            this.headerChain = new HeaderChain(this.promisApi, HeaderChain.DEFAULT_CAPACITY).follow();
+        }
+        return this.headerChain;
+    }
+
+    /**
+     * The fees kept up to date for `derive.balances.fees`, see {@link FeesCache}
+     */
+    public synchronized FeesCache getFeesCache() {
+        if (this.feesCache == null) {
+            this.feesCache = new FeesCache(this.promisApi);
+        }
+        return this.feesCache;
+    }
+
+    /**
+     * The nonce manager used by signAndSend, null when not enabled
+     */
+    public NonceManager getNonceManager() {
+        return this.nonceManager;
+    }
+
+    /**
+     * Enables (with a positive size) or disables (with 0) the cache of storage reads. Once enabled, the reads
+     * of the latest state are scoped to the head received from chain_subscribeNewHead, the reads at a given
+     * block hash are cached as long as they are not evicted.
+     */
+    public synchronized void setStorageCacheSize(long storageCacheSize) {
+        this.options.setStorageCacheSize(storageCacheSize);
+
+        if (this.storageCacheHeads != null) {
+            this.storageCacheHeads.then(unsubscribe -> ((IRpcFunction.Unsubscribe<Promise>) unsubscribe).unsubscribe());
+            this.storageCacheHeads = null;
+        }
+        if (storageCacheSize <= 0) {
+            this.storageCache = null;
+            return;
+        }
+
+        StorageCache cache = new StorageCache(storageCacheSize);
+        IRpcFunction.SubscribeCallback<Header> onHead = header -> cache.setHead(header.getHash().toHex());
+        this.storageCacheHeads = this.rpcBase.chain().function("subscribeNewHead").invoke(onHead);
+        this.storageCache = cache;
+    }
+
+    /**
+     * One-shot read of a storage entry via state_getStorage, at the given block hash or the best block when null
+     */
+    private <ApplyResult> ApplyResult readStorage(StorageKey.StorageFunction storageMethod, Object[] args, Object hash, OnCallDefinition<ApplyResult> onCallDefinition) {
+        IRpcFunction getStorage = this.rpcBase.state().function("getStorage");
+        StorageCache cache = this.storageCache;
+
+        return onCallDefinition.apply(
+                new OnCallFunction() {
+                    @Override
+                    public Promise apply(Object... params) {
+                        // with the cache, reads of the latest state are done at the current head
+                        String blockHash = cache == null
+                                ? null
+                                : hash == null ? cache.getHead() : new Hash(hash).toHex();
+                        if (blockHash != null) {
+                            String key = new StorageKey(new Object[]{storageMethod, params}).toHex();
+                            return cache.get(blockHash, key, () -> getStorage.invoke(new Object[]{storageMethod, params}, blockHash));
+                        }
+
+                        return hash == null
+                                ? getStorage.invoke((Object) new Object[]{storageMethod, params})
+                                : getStorage.invoke(new Object[]{storageMethod, params}, hash);
+                    }
+                },
+                Lists.newArrayList(args),
+                false,
+                null
+        );
+    }
+
+    // retrieve the entries of the linked map, from the head following the next keys. The reads
+    // are pipelined by the LinkedMapIterator, the entries collected here into the LinkageResult
+    private Promise getNext(Codec head, StorageKey.StorageFunction storageMethod) {
+        List<Codec> keys = Lists.newArrayList();
+        List<Codec> values = Lists.newArrayList();
+
+        LinkedMapIterator iterator = new LinkedMapIterator(this.rpcBase, storageMethod, LinkedMapIterator.DEFAULT_WINDOW, null);
+        return new Promise((handler) -> iterator.toFlowable(head == null ? new Null() : head).subscribe(
+                entry -> {
+                    keys.add(entry.getKey());
+                    values.add(entry.getValue());
+                },
+                handler::reject,
+                () -> handler.resolve(values.isEmpty()
+                        ? new Linkage.LinkageResult(
+                        TypesUtils.getConstructorCodec(Null.class), Lists.newArrayList(),
+                        TypesUtils.getConstructorCodec(Null.class), Lists.newArrayList())
+                        : new Linkage.LinkageResult(
+                        TypesUtils.getConstructorCodec(keys.get(0).getClass()), Lists.newArrayList(keys),
+                        TypesUtils.getConstructorCodec(values.get(0).getClass()), Lists.newArrayList(values)))));
     }
 
     private <ApplyResult> ApplyResult decorateStorageEntryLinked(StorageKey.StorageFunction storageMethod, IRpcFunction.SubscribeCallback callback, OnCallDefinition<ApplyResult> onCallDefinition) {
@@ -865,8 +1324,7 @@ public abstract class ApiBase<ApplyResult> implements Types.ApiBaseInterface<App
                                     if (!list.isEmpty()) {
                                         head.set((Codec) list.get(0));
                                     }
-                                    //return getNext(head.get(), head.get(), storageMethod);
-                                    Promise next = getNext(head.get(), head.get(), storageMethod);
+                                    Promise next = getNext(head.get(), storageMethod);
                                     if (callback != null) {
                                         return next.then(ret -> {
                                             callback.callback(ret);
@@ -931,6 +1389,16 @@ public abstract class ApiBase<ApplyResult> implements Types.ApiBaseInterface<App
      * Disconnect from the underlying provider, halting all comms
      */
     public void disconnect() {
+        synchronized (this) {
+            if (this.headerChain != null) {
+                this.headerChain.stop();
+                this.headerChain = null;
+            }
+            if (this.feesCache != null) {
+                this.feesCache.close();
+                this.feesCache = null;
+            }
+        }
         this.rpcBase.disconnect();
     }
 
@@ -0,0 +1,388 @@
+package org.polkadot.api;
+
+import com.google.common.collect.Lists;
+import com.onehilltech.promises.Promise;
+import org.apache.commons.lang3.tuple.Pair;
+import org.polkadot.common.NamedThreadFactory;
+import org.polkadot.rpc.provider.IProvider;
+import org.polkadot.types.primitive.StorageKey;
+import org.polkadot.types.type.EventFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Fetches a range of historical blocks (and their events) and hands them over decoded, in block order. The range
+ * is walked in batches of blocks: the hashes of a batch are requested in one JSON-RPC batch (chain_getBlockHash),
+ * then the blocks and events in another (chain_getBlock, state_getStorage of system.events), see
+ * {@link IProvider#sendBatch}. Up to `concurrency` batches are fetched at a time, spread over the providers, and
+ * the blocks of a batch are decoded in parallel on the decoder pool. A batch that fails is fetched again from the
+ * next provider.
+ * <p>
+ * The batches are handed to the consumer in order, on a thread of the backfill. Once the blocks of a batch are
+ * consumed, the last one is saved in the {@link CheckpointStore}: a backfill run again (after a crash) starts after
+ * the checkpoint, without fetching the blocks consumed again.
+ * <p>
+ * **Example**
+ * <p>
+ * ```java
+ * api.backfill(Lists.newArrayList(provider1, provider2), true)
+ * .run(1, 1000000, new BlockBackfill.FileCheckpointStore(Paths.get("backfill.checkpoint")), block -> index(block))
+ * .then(report -> System.out.println(report));
+ * ```
+ */
+public class BlockBackfill {
+
+    private static final Logger logger = LoggerFactory.getLogger(BlockBackfill.class);
+
+    public static final int DEFAULT_BATCH_SIZE = 50;
+    public static final int DEFAULT_CONCURRENCY = 8;
+    // the attempts to fetch a batch, on as many providers
+    private static final int MAX_ATTEMPTS = 3;
+
+    /**
+     * Where the last block consumed is kept between the runs
+     */
+    public interface CheckpointStore {
+        /**
+         * The last block consumed, -1 when none
+         */
+        long load();
+
+        void save(long blockNumber);
+    }
+
+    /**
+     * A checkpoint kept in a file, replaced atomically
+     */
+    public static class FileCheckpointStore implements CheckpointStore {
+        private final Path path;
+
+        public FileCheckpointStore(Path path) {
+            this.path = path;
+        }
+
+        @Override
+        public long load() {
+            try {
+                return Files.exists(this.path)
+                        ? Long.parseLong(new String(Files.readAllBytes(this.path), StandardCharsets.UTF_8).trim())
+                        : -1;
+            } catch (IOException e) {
+                throw new RuntimeException("Unable to read the checkpoint " + this.path, e);
+            }
+        }
+
+        @Override
+        public void save(long blockNumber) {
+            Path temp = this.path.resolveSibling(this.path.getFileName() + ".tmp");
+            try {
+                Files.write(temp, String.valueOf(blockNumber).getBytes(StandardCharsets.UTF_8));
+                Files.move(temp, this.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                throw new RuntimeException("Unable to write the checkpoint " + this.path, e);
+            }
+        }
+    }
+
+    /**
+     * The blocks of a run and the throughput
+     */
+    public static class Report {
+        private final long fromBlock;
+        private final long toBlock;
+        private final long blocks;
+        private final double seconds;
+
+        Report(long fromBlock, long toBlock, long blocks, double seconds) {
+            this.fromBlock = fromBlock;
+            this.toBlock = toBlock;
+            this.blocks = blocks;
+            this.seconds = seconds;
+        }
+
+        /**
+         * The first block fetched, after the checkpoint
+         */
+        public long getFromBlock() {
+            return fromBlock;
+        }
+
+        public long getToBlock() {
+            return toBlock;
+        }
+
+        public long getBlocks() {
+            return blocks;
+        }
+
+        public double getSeconds() {
+            return seconds;
+        }
+
+        public double getBlocksPerSecond() {
+            return this.seconds > 0 ? this.blocks / this.seconds : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d blocks [%d, %d] in %.1fs (%.1f blocks/s)",
+                    this.blocks, this.fromBlock, this.toBlock, this.seconds, this.getBlocksPerSecond());
+        }
+    }
+
+    private final List<IProvider> providers;
+    private final BlockDecoder blockDecoder;
+    private final int batchSize;
+    private final int concurrency;
+    private final Executor decoder;
+    private volatile EventFilter eventFilter;
+
+    private volatile long started;
+    private volatile long delivered;
+
+    /**
+     * @param providers   the nodes to fetch from, the batches are spread over them
+     * @param events      the system.events storage function, null to not read the events
+     * @param batchSize   the number of blocks in one JSON-RPC batch
+     * @param concurrency the maximum number of batches fetched and not yet consumed
+     * @param decoder     decodes the blocks and the events
+     */
+    public BlockBackfill(List<IProvider> providers, StorageKey.StorageFunction events, int batchSize, int concurrency, Executor decoder) {
+        assert !providers.isEmpty() : "Expected at least one provider";
+        assert batchSize > 0 : "Expected a positive batch size, found " + batchSize;
+        assert concurrency > 0 : "Expected a positive concurrency, found " + concurrency;
+
+        this.providers = providers;
+        this.blockDecoder = new BlockDecoder(events);
+        this.batchSize = batchSize;
+        this.concurrency = concurrency;
+        this.decoder = decoder;
+    }
+
+    /**
+     * Decodes the events of the filter only (the other events are skipped raw), null to decode all the events
+     */
+    public BlockBackfill filterEvents(EventFilter eventFilter) {
+        this.eventFilter = eventFilter;
+        return this;
+    }
+
+    /**
+     * The number of blocks consumed by the current (or last) run
+     */
+    public long getDelivered() {
+        return this.delivered;
+    }
+
+    /**
+     * The blocks consumed per second by the current (or last) run
+     */
+    public double getBlocksPerSecond() {
+        double seconds = (System.nanoTime() - this.started) / 1e9;
+        return seconds > 0 ? this.delivered / seconds : 0;
+    }
+
+    /**
+     * Hands the blocks [fromBlock, toBlock] to the consumer, from the block after the checkpoint when later
+     *
+     * @param checkpoints where the last block consumed is kept, null to not keep it
+     * @return the report, once all the blocks are consumed, rejected when a batch can't be fetched (including the
+     * blocks after the head of the nodes) or the consumer fails (the checkpoint is the last batch consumed)
+     */
+    public Promise<Report> run(long fromBlock, long toBlock, CheckpointStore checkpoints, Consumer<BlockIngestion.IngestedBlock> consumer) {
+        long checkpoint = checkpoints == null ? -1 : checkpoints.load();
+        long from = Math.max(fromBlock, checkpoint + 1);
+        this.started = System.nanoTime();
+        this.delivered = 0;
+        if (from > toBlock) {
+            return Promise.value(new Report(from, toBlock, 0, 0));
+        }
+        return new Run(from, toBlock, checkpoints, consumer).start();
+    }
+
+    /**
+     * The state of one run
+     */
+    private class Run {
+        private final long fromBlock;
+        private final long toBlock;
+        private final CheckpointStore checkpoints;
+        private final Consumer<BlockIngestion.IngestedBlock> consumer;
+        private final int batches;
+        private final ExecutorService delivery = Executors.newSingleThreadExecutor(new NamedThreadFactory("Block-Backfill"));
+
+        // the batches fetched, not yet handed over
+        private final Map<Integer, List<BlockIngestion.IngestedBlock>> ready = new HashMap<>();
+        // the next batch to fetch, to hand to the delivery thread, and the number of batches consumed
+        private int nextFetch;
+        private int nextQueued;
+        private int consumed;
+        private boolean failed;
+
+        private Consumer<Report> resolve;
+        private Consumer<Throwable> reject;
+
+        Run(long fromBlock, long toBlock, CheckpointStore checkpoints, Consumer<BlockIngestion.IngestedBlock> consumer) {
+            this.fromBlock = fromBlock;
+            this.toBlock = toBlock;
+            this.checkpoints = checkpoints;
+            this.consumer = consumer;
+            this.batches = (int) ((toBlock - fromBlock) / BlockBackfill.this.batchSize + 1);
+        }
+
+        Promise<Report> start() {
+            return new Promise<>(handler -> {
+                this.resolve = handler::resolve;
+                this.reject = handler::reject;
+                this.fetchMore();
+            });
+        }
+
+        private synchronized void fetchMore() {
+            while (!this.failed
+                    && this.nextFetch < this.batches
+                    && this.nextFetch - this.consumed < BlockBackfill.this.concurrency) {
+                this.fetch(this.nextFetch++, 0);
+            }
+        }
+
+        private void fetch(int batch, int attempt) {
+            long first = this.fromBlock + (long) batch * BlockBackfill.this.batchSize;
+            long last = Math.min(this.toBlock, first + BlockBackfill.this.batchSize - 1);
+            IProvider provider = BlockBackfill.this.providers.get((batch + attempt) % BlockBackfill.this.providers.size());
+            BlockDecoder blockDecoder = BlockBackfill.this.blockDecoder;
+
+            List<Pair<String, List<Object>>> hashRequests = new ArrayList<>();
+            for (long number = first; number <= last; number++) {
+                hashRequests.add(Pair.of("chain_getBlockHash", Lists.newArrayList(number)));
+            }
+            provider.sendBatch(hashRequests)
+                    .then(hashes -> {
+                        int missing = hashes.indexOf(null);
+                        if (missing >= 0) {
+                            // without a hash the node would answer with its best block
+                            throw new RuntimeException("Block " + (first + missing) + " not found, after the head of the node");
+                        }
+                        List<Pair<String, List<Object>>> requests = new ArrayList<>();
+                        for (Object hash : hashes) {
+                            requests.add(Pair.of("chain_getBlock", Lists.newArrayList(hash)));
+                            if (blockDecoder.hasEvents()) {
+                                requests.add(Pair.of("state_getStorage", Lists.newArrayList(blockDecoder.getEventsKey(), hash)));
+                            }
+                        }
+                        return provider.sendBatch(requests)
+                                .then(results -> this.decode(first, hashes, results));
+                    })
+                    .then(blocks -> {
+                        this.fetched(batch, (List<BlockIngestion.IngestedBlock>) (List<?>) blocks);
+                        return null;
+                    })
+                    ._catch(err -> {
+                        if (attempt + 1 < MAX_ATTEMPTS) {
+                            logger.warn("Unable to fetch blocks [{}, {}], retrying: {}", first, last, err.toString());
+                            this.fetch(batch, attempt + 1);
+                        } else {
+                            this.fail(err);
+                        }
+                        return null;
+                    });
+        }
+
+        /**
+         * Decodes the blocks of a batch in parallel on the decoder
+         */
+        private Promise<List<Object>> decode(long first, List<Object> hashes, List<Object> results) {
+            int stride = BlockBackfill.this.blockDecoder.hasEvents() ? 2 : 1;
+            EventFilter eventFilter = BlockBackfill.this.eventFilter;
+            Promise[] blocks = new Promise[hashes.size()];
+            for (int i = 0; i < blocks.length; i++) {
+                long number = first + i;
+                String hash = (String) hashes.get(i);
+                Object block = results.get(i * stride);
+                Object events = stride == 2 ? results.get(i * stride + 1) : null;
+                blocks[i] = new Promise<>(handler -> BlockBackfill.this.decoder.execute(() -> {
+                    try {
+                        handler.resolve(BlockBackfill.this.blockDecoder.decode(number, hash, block, events, eventFilter));
+                    } catch (Throwable e) {
+                        handler.reject(e);
+                    }
+                }));
+            }
+            return Promise.all(blocks);
+        }
+
+        private synchronized void fetched(int batch, List<BlockIngestion.IngestedBlock> blocks) {
+            if (this.failed) {
+                return;
+            }
+            this.ready.put(batch, blocks);
+
+            // the batches next in order, handed over on the delivery thread
+            List<BlockIngestion.IngestedBlock> next;
+            while ((next = this.ready.remove(this.nextQueued)) != null) {
+                List<BlockIngestion.IngestedBlock> queued = next;
+                this.nextQueued++;
+                this.delivery.execute(() -> this.deliver(queued));
+            }
+        }
+
+        private void deliver(List<BlockIngestion.IngestedBlock> blocks) {
+            synchronized (this) {
+                if (this.failed) {
+                    return;
+                }
+            }
+            try {
+                for (BlockIngestion.IngestedBlock block : blocks) {
+                    this.consumer.accept(block);
+                    BlockBackfill.this.delivered++;
+                }
+                if (this.checkpoints != null) {
+                    this.checkpoints.save(blocks.get(blocks.size() - 1).getNumber());
+                }
+            } catch (Throwable e) {
+                this.fail(e);
+                return;
+            }
+
+            boolean done;
+            synchronized (this) {
+                this.consumed++;
+                done = this.consumed == this.batches;
+            }
+            if (done) {
+                this.delivery.shutdown();
+                this.resolve.accept(new Report(this.fromBlock, this.toBlock, this.toBlock - this.fromBlock + 1,
+                        (System.nanoTime() - BlockBackfill.this.started) / 1e9));
+            } else {
+                this.fetchMore();
+            }
+        }
+
+        private void fail(Throwable error) {
+            synchronized (this) {
+                if (this.failed) {
+                    return;
+                }
+                this.failed = true;
+                this.ready.clear();
+            }
+            this.delivery.shutdown();
+            this.reject.accept(error);
+        }
+    }
+}
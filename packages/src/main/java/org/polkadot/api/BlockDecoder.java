@@ -0,0 +1,64 @@
+package org.polkadot.api;
+
+import com.alibaba.fastjson.JSON;
+import org.polkadot.rpc.core.RpcCore;
+import org.polkadot.types.Types;
+import org.polkadot.types.TypesUtils;
+import org.polkadot.types.codec.Option;
+import org.polkadot.types.primitive.StorageData;
+import org.polkadot.types.primitive.StorageKey;
+import org.polkadot.types.rpc.SignedBlock;
+import org.polkadot.types.type.EventFilter;
+import org.polkadot.types.type.EventRecord;
+import org.polkadot.utils.Utils;
+
+import java.util.List;
+
+/**
+ * Decodes the raw results of chain_getBlock and of the state_getStorage of system.events, as requested by the
+ * block ingestion and the backfill
+ */
+class BlockDecoder {
+
+    private final StorageKey eventsKey;
+    private final String eventsKeyHex;
+    private final Types.ConstructorCodec optionData = Option.with(TypesUtils.getConstructorCodec(StorageData.class));
+
+    /**
+     * @param events the system.events storage function, null to not read the events
+     */
+    BlockDecoder(StorageKey.StorageFunction events) {
+        this.eventsKey = events == null ? null : new StorageKey(new Object[]{events, new Object[0]});
+        this.eventsKeyHex = this.eventsKey == null ? null : Utils.u8aToHex(this.eventsKey.toU8a(true));
+    }
+
+    boolean hasEvents() {
+        return this.eventsKey != null;
+    }
+
+    /**
+     * The raw key (hex) of system.events, for state_getStorage
+     */
+    String getEventsKey() {
+        return this.eventsKeyHex;
+    }
+
+    /**
+     * @param eventFilter decodes the events of the filter only, null to decode all the events
+     */
+    BlockIngestion.IngestedBlock decode(long number, String hash, Object block, Object events, EventFilter eventFilter) {
+        if (block == null) {
+            throw new RuntimeException("Block " + number + " (" + hash + ") not found");
+        }
+        SignedBlock signedBlock = new SignedBlock(block instanceof String ? JSON.parseObject((String) block) : block);
+        List<EventRecord> records;
+        if (this.eventsKey == null) {
+            records = null;
+        } else if (eventFilter != null) {
+            records = eventFilter.decode(events == null ? null : Utils.hexToU8a((String) events));
+        } else {
+            records = (List<EventRecord>) RpcCore.decodeStorageChange(this.eventsKey, (Option<StorageData>) this.optionData.newInstance(events));
+        }
+        return new BlockIngestion.IngestedBlock(number, hash, signedBlock, records);
+    }
+}
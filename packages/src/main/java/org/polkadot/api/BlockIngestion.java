@@ -0,0 +1,312 @@
+package org.polkadot.api;
+
+import com.google.common.collect.Lists;
+import com.onehilltech.promises.Promise;
+import org.polkadot.common.ExecutorsManager;
+import org.polkadot.common.NamedThreadFactory;
+import org.polkadot.direct.IRpcFunction;
+import org.polkadot.rpc.core.RpcCore;
+import org.polkadot.rpc.provider.IProvider;
+import org.polkadot.types.primitive.StorageKey;
+import org.polkadot.types.rpc.SignedBlock;
+import org.polkadot.types.type.EventFilter;
+import org.polkadot.types.type.EventRecord;
+import org.polkadot.types.type.Header;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Follows the chain block by block, fetching the blocks (and their events) ahead of the consumer and decoding
+ * them off the WebSocket callback thread. The blocks and the events are requested raw (chain_getBlockHash,
+ * chain_getBlock, state_getStorage of system.events), up to `concurrency` blocks at a time, and decoded on the
+ * decoder pool. The decoded blocks are handed to the consumer in block order, one at a time, on a thread of the
+ * ingestion.
+ * <p>
+ * At most `capacity` blocks are fetched and not yet consumed: a slow consumer holds the fetching back. When
+ * started behind the head, the ingestion catches up over the range up to the head (with as many blocks in flight
+ * as the concurrency allows), then follows the new (or finalized) heads. A block that can't be fetched is fetched again.
+ * <p>
+ * The blocks are the ones of the canonical chain when fetched, following the new heads a block replaced by a
+ * reorganisation is not delivered again (follow the finalized heads for blocks that stay).
+ * <p>
+ * **Example**
+ * <p>
+ * ```java
+ * api.ingestBlocks(true, true)
+ * .start(1, block -> index(block.getNumber(), block.getBlock(), block.getEvents()));
+ * ```
+ */
+public class BlockIngestion {
+
+    private static final Logger logger = LoggerFactory.getLogger(BlockIngestion.class);
+
+    public static final int DEFAULT_CONCURRENCY = 16;
+    public static final int DEFAULT_CAPACITY = 256;
+    private static final long RETRY_DELAY = 1000;
+
+    /**
+     * A block, decoded
+     */
+    public static class IngestedBlock {
+        private final long number;
+        private final String hash;
+        private final SignedBlock block;
+        private final List<EventRecord> events;
+
+        IngestedBlock(long number, String hash, SignedBlock block, List<EventRecord> events) {
+            this.number = number;
+            this.hash = hash;
+            this.block = block;
+            this.events = events;
+        }
+
+        public long getNumber() {
+            return number;
+        }
+
+        /**
+         * The block hash (hex)
+         */
+        public String getHash() {
+            return hash;
+        }
+
+        public SignedBlock getBlock() {
+            return block;
+        }
+
+        /**
+         * The events of the block (the ones of the event filter when filtered), null when the events are not read
+         */
+        public List<EventRecord> getEvents() {
+            return events;
+        }
+    }
+
+    private final RpcCore rpc;
+    private final IProvider provider;
+    private final boolean finalized;
+    private final BlockDecoder blockDecoder;
+    private final int concurrency;
+    private final int capacity;
+    private final Executor decoder;
+    private volatile EventFilter eventFilter;
+
+    private Consumer<IngestedBlock> consumer;
+    private ExecutorService delivery;
+    private Promise heads;
+    private volatile boolean running;
+    // bumped by every start, the fetches and deliveries of a previous run are dropped
+    private volatile long generation;
+    private long started;
+
+    // the next block to fetch, to hand to the delivery thread, to be consumed, and the last block to fetch
+    private long nextFetch;
+    private long nextQueued;
+    private long nextConsumed;
+    private long target = -1;
+    private int inFlight;
+    // the blocks decoded, not yet handed over
+    private final Map<Long, IngestedBlock> ready = new HashMap<>();
+    private volatile long delivered;
+
+    /**
+     * @param finalized   follow the finalized heads, else the new (best) heads
+     * @param events      the system.events storage function, null to not read the events
+     * @param concurrency the maximum number of blocks fetched at a time
+     * @param capacity    the maximum number of blocks fetched and not yet consumed
+     * @param decoder     decodes the blocks and the events
+     */
+    public BlockIngestion(RpcCore rpc, boolean finalized, StorageKey.StorageFunction events, int concurrency, int capacity, Executor decoder) {
+        assert concurrency > 0 : "Expected a positive concurrency, found " + concurrency;
+        assert capacity >= concurrency : "Expected a capacity of at least " + concurrency + ", found " + capacity;
+
+        this.rpc = rpc;
+        this.provider = rpc.getProvider();
+        this.finalized = finalized;
+        this.blockDecoder = new BlockDecoder(events);
+        this.concurrency = concurrency;
+        this.capacity = capacity;
+        this.decoder = decoder;
+    }
+
+    /**
+     * Decodes the events of the filter only (the other events are skipped raw), null to decode all the events
+     */
+    public BlockIngestion filterEvents(EventFilter eventFilter) {
+        this.eventFilter = eventFilter;
+        return this;
+    }
+
+    /**
+     * Hands the blocks from fromBlock on to the consumer, catching up to the head first
+     */
+    public synchronized void start(long fromBlock, Consumer<IngestedBlock> consumer) {
+        assert !this.running : "The ingestion is already started";
+
+        this.consumer = consumer;
+        this.delivery = Executors.newSingleThreadExecutor(new NamedThreadFactory("Block-Ingestion"));
+        this.running = true;
+        this.generation++;
+        this.started = System.nanoTime();
+        this.nextFetch = fromBlock;
+        this.nextQueued = fromBlock;
+        this.nextConsumed = fromBlock;
+        this.target = -1;
+        this.inFlight = 0;
+        this.ready.clear();
+        this.delivered = 0;
+
+        IRpcFunction.SubscribeCallback<Header> onHeader = this::onHead;
+        this.heads = this.rpc.chain()
+                .function(this.finalized ? "subscribeFinalizedHeads" : "subscribeNewHead")
+                .invoke(onHeader);
+        this.heads._catch(err -> {
+            logger.error("Unable to follow the heads: {}", err.toString());
+            return null;
+        });
+    }
+
+    /**
+     * Stops following the heads, the blocks in flight are dropped
+     */
+    public synchronized void stop() {
+        if (!this.running) {
+            return;
+        }
+        this.running = false;
+        this.heads.then(unsubscribe -> ((IRpcFunction.Unsubscribe<Promise>) unsubscribe).unsubscribe());
+        this.ready.clear();
+        this.delivery.shutdown();
+    }
+
+    /**
+     * The number of blocks handed to the consumer
+     */
+    public long getDelivered() {
+        return this.delivered;
+    }
+
+    /**
+     * The number of blocks fetched (or being fetched) and not yet consumed
+     */
+    public synchronized int getBuffered() {
+        return (int) (this.nextFetch - this.nextConsumed);
+    }
+
+    /**
+     * The blocks consumed per second since the start
+     */
+    public double getBlocksPerSecond() {
+        double seconds = (System.nanoTime() - this.started) / 1e9;
+        return seconds > 0 ? this.delivered / seconds : 0;
+    }
+
+    private synchronized void onHead(Header header) {
+        long number = header.getBlockNumber().longValue();
+        if (number > this.target) {
+            this.target = number;
+            this.fetchMore();
+        }
+    }
+
+    /**
+     * Starts fetching the next blocks, within the concurrency and the capacity
+     */
+    private synchronized void fetchMore() {
+        while (this.running
+                && this.nextFetch <= this.target
+                && this.inFlight < this.concurrency
+                && this.nextFetch - this.nextConsumed < this.capacity) {
+            this.inFlight++;
+            this.fetch(this.nextFetch++, this.generation);
+        }
+    }
+
+    private void fetch(long number, long generation) {
+        this.provider.send("chain_getBlockHash", Lists.newArrayList(number), null)
+                .then(hash -> {
+                    if (hash == null) {
+                        // not yet known to the node, chain_getBlock would answer with its best block
+                        throw new RuntimeException("Block " + number + " not found");
+                    }
+                    Promise block = this.provider.send("chain_getBlock", Lists.newArrayList(hash), null);
+                    Promise events = this.blockDecoder.hasEvents()
+                            ? this.provider.send("state_getStorage", Lists.newArrayList(this.blockDecoder.getEventsKey(), hash), null)
+                            : Promise.value(null);
+                    return Promise.all(block, events)
+                            .then(results -> this.decode(number, hash, results.get(0), results.get(1)));
+                })
+                .then(block -> {
+                    this.decoded(block, generation);
+                    return null;
+                })
+                ._catch(err -> {
+                    logger.warn("Unable to fetch block {}, retrying: {}", number, err.toString());
+                    ExecutorsManager.schedule(() -> {
+                        if (this.running && this.generation == generation) {
+                            this.fetch(number, generation);
+                        }
+                    }, RETRY_DELAY, TimeUnit.MILLISECONDS);
+                    return null;
+                });
+    }
+
+    /**
+     * Decodes the raw block and events on the decoder
+     */
+    private Promise<IngestedBlock> decode(long number, String hash, Object block, Object events) {
+        return new Promise<>(handler -> this.decoder.execute(() -> {
+            try {
+                handler.resolve(this.blockDecoder.decode(number, hash, block, events, this.eventFilter));
+            } catch (Throwable e) {
+                handler.reject(e);
+            }
+        }));
+    }
+
+    private synchronized void decoded(IngestedBlock block, long generation) {
+        if (!this.running || this.generation != generation) {
+            return;
+        }
+        this.inFlight--;
+        this.ready.put(block.number, block);
+
+        // the blocks next in order, handed over on the delivery thread
+        IngestedBlock next;
+        while ((next = this.ready.remove(this.nextQueued)) != null) {
+            IngestedBlock queued = next;
+            this.nextQueued++;
+            this.delivery.execute(() -> this.deliver(queued, generation));
+        }
+        this.fetchMore();
+    }
+
+    private void deliver(IngestedBlock block, long generation) {
+        if (!this.running || this.generation != generation) {
+            return;
+        }
+        try {
+            this.consumer.accept(block);
+        } catch (Throwable e) {
+            logger.error("Block {} consumer failed: {}", block.number, e.toString());
+        }
+        synchronized (this) {
+            if (this.generation != generation) {
+                return;
+            }
+            this.delivered++;
+            this.nextConsumed++;
+            this.fetchMore();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package org.polkadot.api;
+
+import com.onehilltech.promises.Promise;
+import org.polkadot.direct.IRpcFunction;
+import org.polkadot.rpc.core.RpcCore;
+import org.polkadot.types.primitive.StorageKey;
+import org.polkadot.types.type.EventFilter;
+import org.polkadot.types.type.EventRecord;
+import org.polkadot.utils.Utils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * A state_subscribeStorage of system.events handing over the events of some (section, method) only. The raw
+ * value of every notification goes through an {@link EventFilter}: the other events are skipped from their
+ * index and encoded length, not decoded. The callback is not called for the blocks without matching event.
+ */
+public class EventSubscription {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventSubscription.class);
+
+    private final RpcCore rpc;
+    private final StorageKey key;
+    private final EventFilter filter;
+    private final Consumer<List<EventRecord>> callback;
+
+    /**
+     * @param events the system.events storage function
+     */
+    public EventSubscription(RpcCore rpc, StorageKey.StorageFunction events, EventFilter filter, Consumer<List<EventRecord>> callback) {
+        this.rpc = rpc;
+        this.key = new StorageKey(new Object[]{events, new Object[0]});
+        this.filter = filter;
+        this.callback = callback;
+    }
+
+    /**
+     * Subscribes, the promise resolves to the unsubscribe function
+     */
+    public Promise<IRpcFunction.Unsubscribe<Promise>> subscribe() {
+        RpcCore.StorageChangesCallback onChanges = this::onChanges;
+        Promise subscribe = this.rpc.state().function("subscribeStorage").invoke(new StorageKey[]{this.key}, onChanges);
+        return subscribe.then(unsubscribe -> Promise.value((IRpcFunction.Unsubscribe<Promise>) unsubscribe));
+    }
+
+    /**
+     * @param changes the raw events (hex), null when empty
+     */
+    private void onChanges(Map<Integer, String> changes) {
+        try {
+            String value = changes.get(0);
+            if (value == null) {
+                return;
+            }
+            List<EventRecord> records = this.filter.decode(Utils.hexToU8a(value));
+            if (!records.isEmpty()) {
+                this.callback.accept(records);
+            }
+        } catch (Exception e) {
+            logger.error("Unable to filter the events: {}", e.toString());
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package org.polkadot.api;
+
+import com.onehilltech.promises.Promise;
+import org.polkadot.api.Types.ApiInterfacePromise;
+import org.polkadot.common.Deferred;
+import org.polkadot.common.ExecutorsManager;
+import org.polkadot.direct.IRpcFunction;
+import org.polkadot.types.Types.IExtrinsic;
+import org.polkadot.types.rpc.SignedBlock;
+import org.polkadot.types.type.EventRecord;
+import org.polkadot.types.type.Extrinsic;
+import org.polkadot.types.type.Header;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Follows extrinsics until they are included in a block, without a watch subscription per extrinsic (as
+ * author_submitAndWatchExtrinsic does): the hashes of the pending extrinsics are kept in a map, and the
+ * extrinsics of every new (or finalized) block are hashed once and looked up in it. The blocks are followed
+ * with a single head subscription, made while there are pending extrinsics.
+ * <p>
+ * A pending extrinsic not included within the timeout (dropped by the node, or its block never finalized) is
+ * rejected.
+ * <p>
+ * **Example**
+ * <p>
+ * ```java
+ * api.getExtrinsicTracker()
+ * .submit(api.tx().section("balances").function("transfer").call(BOB, 12345).sign(alice, options))
+ * .then(inclusion -> System.out.println("in " + inclusion.getBlockHash() + ": " + inclusion.getEvents()));
+ * ```
+ */
+public class ExtrinsicTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExtrinsicTracker.class);
+
+    public static final long DEFAULT_TIMEOUT = TimeUnit.MINUTES.toMillis(5);
+
+    /**
+     * The inclusion of an extrinsic in a block
+     */
+    public static class Inclusion {
+        private final String hash;
+        private final String blockHash;
+        private final long blockNumber;
+        private final int index;
+        private final List<EventRecord> events;
+
+        Inclusion(String hash, String blockHash, long blockNumber, int index, List<EventRecord> events) {
+            this.hash = hash;
+            this.blockHash = blockHash;
+            this.blockNumber = blockNumber;
+            this.index = index;
+            this.events = events;
+        }
+
+        /**
+         * The extrinsic hash (hex)
+         */
+        public String getHash() {
+            return hash;
+        }
+
+        /**
+         * The block (hex) including the extrinsic
+         */
+        public String getBlockHash() {
+            return blockHash;
+        }
+
+        public long getBlockNumber() {
+            return blockNumber;
+        }
+
+        /**
+         * The position of the extrinsic in the block
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * The events of the extrinsic, empty when the events are not read
+         */
+        public List<EventRecord> getEvents() {
+            return events;
+        }
+
+        /**
+         * `true` unless the extrinsic raised system.ExtrinsicFailed
+         */
+        public boolean isSuccess() {
+            return this.events.stream().noneMatch(record ->
+                    "system".equals(record.getEvent().getSection()) && "ExtrinsicFailed".equals(record.getEvent().getMethod()));
+        }
+    }
+
+    private class Pending {
+        final String hash;
+        final Consumer<Inclusion> resolve;
+        final Consumer<Throwable> reject;
+        volatile ScheduledFuture<?> timeout;
+
+        Pending(String hash, Consumer<Inclusion> resolve, Consumer<Throwable> reject) {
+            this.hash = hash;
+            this.resolve = resolve;
+            this.reject = reject;
+        }
+    }
+
+    private final ApiInterfacePromise api;
+    private final boolean finalized;
+    private final boolean events;
+    private final long timeout;
+
+    // the extrinsics not yet seen in a block, by hash
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+
+    private Promise heads;
+    private Promise scanning = Promise.value(null);
+    private long lastScanned = -1;
+
+    /**
+     * @param finalized follow the finalized blocks, else the new (best) blocks
+     * @param events    read the events of the extrinsics (system.events of the including blocks)
+     * @param timeout   the time (in milliseconds) an extrinsic is waited for
+     */
+    public ExtrinsicTracker(ApiInterfacePromise api, boolean finalized, boolean events, long timeout) {
+        assert timeout > 0 : "Expected a positive timeout, found " + timeout;
+
+        this.api = api;
+        this.finalized = finalized;
+        this.events = events;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Sends the (signed) extrinsic with author_submitExtrinsic and follows it
+     *
+     * @return the inclusion, rejected when the node does not accept the extrinsic or when it is not included in time
+     */
+    public Promise<Inclusion> submit(IExtrinsic extrinsic) {
+        String hash = extrinsic.getHash().toHex();
+        // followed before sending, the block may be scanned before the answer is received
+        Promise<Inclusion> inclusion = this.track(hash);
+        this.api.rpc().author().function("submitExtrinsic").invoke(extrinsic)._catch(err -> {
+            this.fail(hash, err);
+            return null;
+        });
+        return inclusion;
+    }
+
+    /**
+     * Follows an extrinsic (hash, hex) sent otherwise
+     */
+    public Promise<Inclusion> track(String hash) {
+        String key = hash.toLowerCase();
+        // followed once this returns, a submission failing right away finds it
+        Deferred<Inclusion> inclusion = new Deferred<>();
+        Pending pending = new Pending(key, inclusion::resolve, inclusion::reject);
+        synchronized (this) {
+            if (this.pending.putIfAbsent(key, pending) != null) {
+                return Promise.reject(new RuntimeException("Extrinsic " + key + " is already tracked"));
+            }
+            if (this.heads == null) {
+                this.follow();
+            }
+        }
+        ScheduledFuture<?> timeout = ExecutorsManager.schedule(() -> this.fail(key, new RuntimeException(
+                "Extrinsic " + key + " not included within " + this.timeout + "ms, dropped")), this.timeout, TimeUnit.MILLISECONDS);
+        pending.timeout = timeout;
+        if (inclusion.isSettled()) {
+            // failed meanwhile
+            timeout.cancel(false);
+        }
+        return inclusion.promise();
+    }
+
+    /**
+     * Stops following the extrinsic, its promise is rejected
+     */
+    public void cancel(String hash) {
+        this.fail(hash.toLowerCase(), new RuntimeException("Extrinsic " + hash + " no longer tracked"));
+    }
+
+    /**
+     * The number of extrinsics followed
+     */
+    public int getPending() {
+        return this.pending.size();
+    }
+
+    private void fail(String hash, Throwable error) {
+        Pending pending = this.pending.remove(hash);
+        if (pending != null) {
+            if (pending.timeout != null) {
+                pending.timeout.cancel(false);
+            }
+            pending.reject.accept(error);
+            this.unfollowIfIdle();
+        }
+    }
+
+    private void follow() {
+        IRpcFunction.SubscribeCallback<Header> onHeader = this::onHead;
+        this.lastScanned = -1;
+        this.heads = this.api.rpc().chain()
+                .function(this.finalized ? "subscribeFinalizedHeads" : "subscribeNewHead")
+                .invoke(onHeader);
+        Promise heads = this.heads;
+        heads._catch(err -> {
+            logger.error("Unable to follow the blocks: {}", err.toString());
+            synchronized (this) {
+                if (this.heads == heads) {
+                    this.heads = null;
+                }
+            }
+            for (String hash : new ArrayList<>(this.pending.keySet())) {
+                this.fail(hash, err);
+            }
+            return null;
+        });
+    }
+
+    private synchronized void unfollowIfIdle() {
+        if (this.pending.isEmpty() && this.heads != null) {
+            this.heads.then(unsubscribe -> ((IRpcFunction.Unsubscribe<Promise>) unsubscribe).unsubscribe());
+            this.heads = null;
+        }
+    }
+
+    /**
+     * Scans the blocks up to the head, from the last one scanned, one after the other
+     */
+    private synchronized void onHead(Header header) {
+        long number = header.getBlockNumber().longValue();
+        if (this.lastScanned < 0 || number <= this.lastScanned) {
+            // the blocks before the first head can't include the extrinsics, a lower head is a new fork
+            this.lastScanned = number - 1;
+        }
+        for (long blockNumber = this.lastScanned + 1; blockNumber <= number; blockNumber++) {
+            long scanned = blockNumber;
+            this.scanning = this.scanning
+                    .then(previous -> this.api.rpc().chain().function("getBlockHash").invoke(scanned))
+                    .then(hash -> this.api.rpc().chain().function("getBlock").invoke(hash))
+                    .then(block -> this.scan(scanned, (SignedBlock) block))
+                    ._catch(err -> {
+                        logger.error("Unable to scan block {}: {}", scanned, err.toString());
+                        return Promise.value(null);
+                    });
+        }
+        this.lastScanned = number;
+    }
+
+    private Promise scan(long number, SignedBlock signedBlock) {
+        if (this.pending.isEmpty()) {
+            return Promise.value(null);
+        }
+        String blockHash = signedBlock.getBlock().getHash().toHex();
+        List<Extrinsic> extrinsics = signedBlock.getBlock().getExtrinsics();
+
+        List<Pending> included = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+        for (int i = 0; i < extrinsics.size(); i++) {
+            Pending pending = this.pending.remove(extrinsics.get(i).getHash().toHex());
+            if (pending != null) {
+                if (pending.timeout != null) {
+                    pending.timeout.cancel(false);
+                }
+                included.add(pending);
+                indexes.add(i);
+            }
+        }
+        if (included.isEmpty()) {
+            return Promise.value(null);
+        }
+
+        Promise allEvents = this.events
+                ? this.api.query().section("system").function("events").at(blockHash, null)
+                : Promise.value(null);
+        allEvents = allEvents._catch(err -> {
+            // still included, without the events
+            logger.warn("Unable to read the events of block {}: {}", blockHash, err.toString());
+            return Promise.value(null);
+        });
+        return allEvents.then(records -> {
+            for (int i = 0; i < included.size(); i++) {
+                int index = indexes.get(i);
+                List<EventRecord> events = records == null
+                        ? Collections.emptyList()
+                        : ((List<EventRecord>) records).stream()
+                        .filter(record -> record.getPhase().isApplyExtrinsic() && record.getPhase().asApplyExtrinsic().intValue() == index)
+                        .collect(Collectors.toList());
+                included.get(i).resolve.accept(new Inclusion(included.get(i).hash, blockHash, number, index, events));
+            }
+            this.unfollowIfIdle();
+            return Promise.value(null);
+        });
+    }
+}
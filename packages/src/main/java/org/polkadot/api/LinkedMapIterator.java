@@ -0,0 +1,272 @@
+package org.polkadot.api;
+
+import com.onehilltech.promises.Promise;
+import io.reactivex.Flowable;
+import org.apache.commons.lang3.tuple.Pair;
+import org.polkadot.direct.IRpcFunction;
+import org.polkadot.rpc.core.RpcCore;
+import org.polkadot.types.Codec;
+import org.polkadot.types.codec.Linkage;
+import org.polkadot.types.codec.Tuple;
+import org.polkadot.types.primitive.StorageKey;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Iterates the entries of a linked map (e.g. `staking.validators`), starting at the head of the map and
+ * following the `next` key of the Linkage stored with every entry. All the entries are read (state_getStorage)
+ * at the same block, the latest one when the iteration starts unless a block hash is given.
+ * <p>
+ * The next key is only known once the previous entry is decoded, so the reads of a map follow each other. They
+ * are pipelined with the consumer: the next read is sent as soon as an entry is decoded, before the entry is
+ * handed over, with up to `window` entries read ahead of the consumer. Entries are streamed, the map is never held.
+ * <p>
+ * **Example**
+ * <p>
+ * ```java
+ * api.iterateLinkedMap(api.query().section("staking").function("validators"))
+ * .forEach(entry -> System.out.println(entry.getKey() + " " + entry.getValue()))
+ * .then(count -> ...);
+ * ```
+ */
+public class LinkedMapIterator {
+
+    public static final int DEFAULT_WINDOW = 64;
+
+    private final RpcCore rpc;
+    private final StorageKey.StorageFunction storageMethod;
+    private final int window;
+    private final Object blockHash;
+
+    /**
+     * @param window    the maximum number of entries read and not yet consumed
+     * @param blockHash the block to read the map at, null for the latest block
+     */
+    public LinkedMapIterator(RpcCore rpc, StorageKey.StorageFunction storageMethod, int window, Object blockHash) {
+        assert storageMethod.getHeadKey() != null : storageMethod.getSection() + "." + storageMethod.getMethod() + " is not a linked map";
+        assert window > 0 : "window must be positive";
+
+        this.rpc = rpc;
+        this.storageMethod = storageMethod;
+        this.window = window;
+        this.blockHash = blockHash;
+    }
+
+    /**
+     * The entries, as (key, value) pairs in the order of the map. Every subscription iterates the map anew.
+     */
+    public Flowable<Pair<Codec, Codec>> toFlowable() {
+        return Flowable.fromPublisher(subscriber -> new Walk(subscriber, null).start());
+    }
+
+    /**
+     * The entries from the given head key, read at the same block (the latest one when the walk starts, unless a
+     * block hash is given)
+     */
+    Flowable<Pair<Codec, Codec>> toFlowable(Codec head) {
+        return Flowable.fromPublisher(subscriber -> new Walk(subscriber, head).start());
+    }
+
+    /**
+     * Hands every entry over to the consumer, in the order of the map
+     *
+     * @return the number of entries, once all of them have been consumed
+     */
+    public Promise<Long> forEach(Consumer<Pair<Codec, Codec>> consumer) {
+        AtomicLong count = new AtomicLong();
+        return new Promise<>(handler -> this.toFlowable().subscribe(
+                entry -> {
+                    consumer.accept(entry);
+                    count.incrementAndGet();
+                },
+                handler::reject,
+                () -> handler.resolve(count.get())));
+    }
+
+    /**
+     * One iteration of the map, reading ahead of the subscriber demand up to the window.
+     * The state is guarded by the walk itself, the subscriber is only ever called from the drain loop.
+     */
+    private class Walk implements Subscription {
+        private final Subscriber<? super Pair<Codec, Codec>> subscriber;
+        private final IRpcFunction getStorage = LinkedMapIterator.this.rpc.state().function("getStorage");
+        private final Queue<Pair<Codec, Codec>> entries = new ArrayDeque<>();
+
+        private Object hash = LinkedMapIterator.this.blockHash;
+        private Codec nextKey;
+        private boolean started = false;
+        private boolean reading = false;
+        private boolean draining = false;
+        private boolean finished = false;
+        private boolean cancelled = false;
+        private Throwable error;
+        private long requested = 0;
+
+        Walk(Subscriber<? super Pair<Codec, Codec>> subscriber, Codec head) {
+            this.subscriber = subscriber;
+            this.nextKey = head;
+            this.started = head != null;
+            this.finished = this.started && head.isEmpty();
+        }
+
+        void start() {
+            this.subscriber.onSubscribe(this);
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                this.fail(new IllegalArgumentException("request must be positive, " + n + " requested"));
+                return;
+            }
+            synchronized (this) {
+                this.requested = this.requested + n < 0 ? Long.MAX_VALUE : this.requested + n;
+            }
+            this.read();
+            this.drain();
+        }
+
+        @Override
+        public synchronized void cancel() {
+            this.cancelled = true;
+            this.entries.clear();
+        }
+
+        /**
+         * Sends the next read when the key is known and the window is not full
+         */
+        private void read() {
+            Codec key;
+            boolean isHead;
+            synchronized (this) {
+                if (this.reading || this.finished || this.cancelled
+                        || this.entries.size() >= LinkedMapIterator.this.window) {
+                    return;
+                }
+                this.reading = true;
+                isHead = !this.started;
+                key = this.nextKey;
+            }
+
+            Promise read = isHead ? this.readHead() : this.readEntry(key);
+            read.then(result -> {
+                synchronized (this) {
+                    this.reading = false;
+                    if (isHead) {
+                        this.started = true;
+                        this.nextKey = (Codec) result;
+                        this.finished = result == null || ((Codec) result).isEmpty();
+                    } else if (result == null) {
+                        // the entry was removed, the linkage of the previous entry pointed to nothing
+                        this.finished = true;
+                    } else {
+                        Tuple entry = (Tuple) result;
+                        Linkage<Codec> linkage = (Linkage<Codec>) entry.get(1);
+                        this.nextKey = linkage.getNext().isSome() ? linkage.getNext().unwrap() : null;
+                        this.finished = this.nextKey == null;
+                        if (!this.cancelled) {
+                            this.entries.add(Pair.of(key, entry.get(0)));
+                        }
+                    }
+                }
+                // the next read goes out before this entry is handed over
+                this.read();
+                this.drain();
+                return null;
+            })._catch(err -> {
+                this.fail(err);
+                return null;
+            });
+        }
+
+        private Promise readHead() {
+            return this.blockHash().then(blockHash ->
+                    this.getStorage.invoke(LinkedMapIterator.this.storageMethod.getHeadKey(), blockHash));
+        }
+
+        private Promise readEntry(Codec key) {
+            Object storageKey = new Object[]{LinkedMapIterator.this.storageMethod, new Object[]{key}};
+            return this.blockHash().then(blockHash -> this.getStorage.invoke(storageKey, blockHash));
+        }
+
+        /**
+         * The block all the entries are read at, the latest one fetched on the first read
+         */
+        private Promise blockHash() {
+            Object blockHash;
+            synchronized (this) {
+                blockHash = this.hash;
+            }
+            if (blockHash != null) {
+                return Promise.value(blockHash);
+            }
+            return LinkedMapIterator.this.rpc.chain().function("getBlockHash").invoke()
+                    .then(latest -> {
+                        synchronized (this) {
+                            this.hash = latest;
+                        }
+                        return Promise.value(latest);
+                    });
+        }
+
+        private void drain() {
+            synchronized (this) {
+                if (this.draining) {
+                    return;
+                }
+                this.draining = true;
+            }
+
+            while (true) {
+                Pair<Codec, Codec> entry;
+                boolean complete;
+                Throwable error;
+                synchronized (this) {
+                    complete = this.finished && this.entries.isEmpty() && !this.reading;
+                    error = this.error;
+                    entry = this.requested > 0 && error == null ? this.entries.poll() : null;
+                    if (this.cancelled || (entry == null && !complete && error == null)) {
+                        this.draining = false;
+                        return;
+                    }
+                    if (entry != null) {
+                        this.requested--;
+                    } else {
+                        // terminal, nothing is emitted after this
+                        this.cancelled = true;
+                        this.draining = false;
+                    }
+                }
+
+                if (error != null) {
+                    this.subscriber.onError(error);
+                    return;
+                }
+                if (entry == null) {
+                    this.subscriber.onComplete();
+                    return;
+                }
+
+                this.subscriber.onNext(entry);
+                // a slot in the window was freed
+                this.read();
+            }
+        }
+
+        private void fail(Throwable error) {
+            synchronized (this) {
+                this.reading = false;
+                if (this.error == null) {
+                    this.error = error;
+                }
+                this.entries.clear();
+            }
+            this.drain();
+        }
+    }
+}
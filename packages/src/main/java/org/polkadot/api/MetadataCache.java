@@ -0,0 +1,180 @@
+package org.polkadot.api;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.polkadot.type.storage.FromMetadata;
+import org.polkadot.type.storage.Types.Storage;
+import org.polkadot.types.metadata.Metadata;
+import org.polkadot.types.primitive.Method;
+import org.polkadot.types.rpc.RuntimeVersion;
+import org.polkadot.types.type.Hash;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import static org.polkadot.type.extrinsics.FromMetadata.fromMetadata;
+
+/**
+ * Cache of the runtime metadata, keyed by (genesis hash, spec name, spec version): the metadata of a runtime
+ * never changes, a runtime upgrade bumps the spec version.
+ * <p>
+ * The decoded entries (metadata, storage functions and extrinsic methods) are shared by all the APIs of the
+ * process. With a directory, the raw metadata (SCALE encoded, as returned by state_getMetadata) is also kept
+ * in one file per runtime, read back in one go, so that a new process skips state_getMetadata.
+ */
+public class MetadataCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetadataCache.class);
+
+    private static final String EXTENSION = ".scale";
+    private static final long MAX_DECODED = 8;
+
+    // the decoded runtimes, shared by all the caches
+    private static final Cache<String, Entry> decoded = CacheBuilder.newBuilder()
+            .maximumSize(MAX_DECODED)
+            .build();
+
+    /**
+     * A decoded runtime metadata, along with the storage functions and extrinsic methods built from it. The
+     * storage is built on first use, all the modules at once or module by module (see lazyModules)
+     */
+    public static class Entry {
+        private final Metadata metadata;
+        private volatile Storage storage;
+        private volatile Storage lazyStorage;
+        private final Method.ModulesWithMethods modulesWithMethods;
+
+        Entry(Metadata metadata) {
+            this.metadata = metadata;
+            this.modulesWithMethods = fromMetadata(metadata.asV0());
+        }
+
+        Entry(Metadata metadata, Storage storage, Method.ModulesWithMethods modulesWithMethods) {
+            this.metadata = metadata;
+            this.storage = storage;
+            this.lazyStorage = storage;
+            this.modulesWithMethods = modulesWithMethods;
+        }
+
+        public Metadata getMetadata() {
+            return metadata;
+        }
+
+        public Storage getStorage() {
+            if (this.storage == null) {
+                synchronized (this) {
+                    if (this.storage == null) {
+                        this.storage = FromMetadata.fromMetadata(this.metadata.asV0());
+                    }
+                }
+            }
+            return this.storage;
+        }
+
+        /**
+         * The storage with the functions of a module created on first access, see {@link FromMetadata#lazyFromMetadata}
+         */
+        public Storage getLazyStorage() {
+            if (this.lazyStorage == null) {
+                synchronized (this) {
+                    if (this.lazyStorage == null) {
+                        this.lazyStorage = FromMetadata.lazyFromMetadata(this.metadata.asV0());
+                    }
+                }
+            }
+            return this.lazyStorage;
+        }
+
+        public Method.ModulesWithMethods getModulesWithMethods() {
+            return modulesWithMethods;
+        }
+    }
+
+    private final File directory;
+
+    /**
+     * @param directory the directory of the metadata files, null to only keep the decoded entries in memory
+     */
+    public MetadataCache(File directory) {
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+            throw new RuntimeException("Unable to create the metadata cache directory " + directory);
+        }
+        this.directory = directory;
+    }
+
+    /**
+     * The cache key of a runtime
+     */
+    public static String key(Hash genesisHash, RuntimeVersion runtimeVersion) {
+        return genesisHash.toHex() + "-" + runtimeVersion.getSpecName().replaceAll("[^A-Za-z0-9_.]", "_")
+                + "-" + runtimeVersion.getSpecVersion().toString();
+    }
+
+    /**
+     * The decoded runtime, from memory or from its file, null when not cached
+     */
+    public Entry get(String key) {
+        Entry entry = decoded.getIfPresent(key);
+        if (entry != null || this.directory == null) {
+            return entry;
+        }
+
+        File file = this.file(key);
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            entry = new Entry(new Metadata(Files.readAllBytes(file.toPath())));
+        } catch (Exception e) {
+            // a truncated or stale file, fetched again
+            logger.warn("Unable to load the metadata from {}: {}", file, e.toString());
+            this.invalidate(key);
+            return null;
+        }
+        decoded.put(key, entry);
+        return entry;
+    }
+
+    /**
+     * Decodes and caches the metadata of the runtime (as encoded by the node), writing its file when there
+     * is a directory
+     */
+    public Entry put(String key, byte[] metadata) {
+        Entry entry = new Entry(new Metadata(metadata));
+        decoded.put(key, entry);
+
+        if (this.directory != null) {
+            File file = this.file(key);
+            try {
+                // written aside and moved, a reader never sees a partial file
+                File temp = File.createTempFile(key, ".tmp", this.directory);
+                Files.write(temp.toPath(), metadata);
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                logger.warn("Unable to write the metadata to {}: {}", file, e.toString());
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Drops the runtime from memory and removes its file
+     */
+    public void invalidate(String key) {
+        decoded.invalidate(key);
+        if (this.directory != null) {
+            File file = this.file(key);
+            if (file.exists() && !file.delete()) {
+                logger.warn("Unable to delete {}", file);
+            }
+        }
+    }
+
+    private File file(String key) {
+        return new File(this.directory, key + EXTENSION);
+    }
+}
@@ -0,0 +1,172 @@
+package org.polkadot.api;
+
+import com.onehilltech.promises.Promise;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Hands out the nonces of the accounts sending extrinsics, so that many extrinsics can be sent from one account
+ * without reading `system.accountNonce` for every one of them.
+ * <p>
+ * The on-chain nonce of an account is read once, the nonces are then taken from a counter (lock-free). A nonce is
+ * pending from the time it is handed out until its extrinsic is accepted by the node or rejected. The nonce of a
+ * rejected extrinsic is handed out again, unless the node rejected it as stale or future, in which case the
+ * account is synced again with the chain (the nonces pending with the node are kept).
+ */
+public class NonceManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(NonceManager.class);
+
+    // the (lower case) messages of the node errors about the nonce
+    private static final String[] NONCE_ERRORS = {"stale", "future", "outdated", "priority is too low"};
+
+    static class Account {
+        // the next nonce, -1 until synced
+        final AtomicLong next = new AtomicLong(-1);
+        // the nonces handed out and then released, handed out first
+        final ConcurrentSkipListSet<Long> released = new ConcurrentSkipListSet<>();
+        final Set<Long> pending = ConcurrentHashMap.newKeySet();
+        // the sync in progress, null once synced
+        volatile Promise<Long> sync;
+
+        long take() {
+            Long nonce = this.released.pollFirst();
+            if (nonce == null) {
+                nonce = this.next.getAndIncrement();
+            }
+            this.pending.add(nonce);
+            return nonce;
+        }
+    }
+
+    private final Function<String, Promise> accountNonce;
+    private final ConcurrentMap<String, Account> accounts = new ConcurrentHashMap<>();
+
+    /**
+     * @param accountNonce reads the on-chain nonce of an address (as a Number, e.g. the Index codec)
+     */
+    public NonceManager(Function<String, Promise> accountNonce) {
+        this.accountNonce = accountNonce;
+    }
+
+    /**
+     * The next nonce of the address, marked as pending
+     */
+    public Promise<Long> next(String address) {
+        Account account = this.accounts.computeIfAbsent(address, key -> {
+            Account created = new Account();
+            this.sync(key, created);
+            return created;
+        });
+
+        Promise<Long> sync = account.sync;
+        return sync == null
+                ? Promise.value(account.take())
+                : sync.then(onChain -> Promise.value(account.take()));
+    }
+
+    /**
+     * The extrinsic with the nonce was accepted by the node
+     */
+    public void submitted(String address, long nonce) {
+        Account account = this.accounts.get(address);
+        if (account != null) {
+            account.pending.remove(nonce);
+        }
+    }
+
+    /**
+     * The extrinsic with the nonce was rejected (or could not be sent). The nonce is handed out again, or the
+     * account synced when the node reports a stale or future nonce.
+     */
+    public void failed(String address, long nonce, Throwable error) {
+        Account account = this.accounts.get(address);
+        if (account == null) {
+            return;
+        }
+        account.pending.remove(nonce);
+
+        if (isNonceError(error)) {
+            logger.info("Nonce {} of {} rejected ({}), syncing", nonce, address, error.getMessage());
+            this.resync(address);
+        } else if (!account.next.compareAndSet(nonce + 1, nonce)) {
+            account.released.add(nonce);
+        }
+    }
+
+    /**
+     * Reads the on-chain nonce of the address again, the next nonces are handed out once read
+     */
+    public void resync(String address) {
+        Account account = this.accounts.get(address);
+        if (account != null) {
+            this.sync(address, account);
+        }
+    }
+
+    /**
+     * The nonces of the address handed out and not yet accepted or rejected
+     */
+    public Set<Long> getPending(String address) {
+        Account account = this.accounts.get(address);
+        return account == null ? Collections.emptySet() : Collections.unmodifiableSet(account.pending);
+    }
+
+    /**
+     * Forgets all the accounts, their nonces are read again on the next use
+     */
+    public void clear() {
+        this.accounts.clear();
+    }
+
+    private void sync(String address, Account account) {
+        synchronized (account) {
+            if (account.sync != null) {
+                return;
+            }
+            AtomicBoolean synced = new AtomicBoolean(false);
+            Promise<Long> sync = this.accountNonce.apply(address).then(result -> {
+                long onChain = ((Number) result).longValue();
+                synchronized (account) {
+                    long next = onChain;
+                    for (Long pending : account.pending) {
+                        next = Math.max(next, pending + 1);
+                    }
+                    account.released.headSet(onChain).clear();
+                    account.next.set(next);
+                    account.sync = null;
+                    synced.set(true);
+                }
+                return Promise.value(onChain);
+            });
+            sync._catch(err -> {
+                // read again on the next nonce
+                this.accounts.remove(address, account);
+                return null;
+            });
+            // the nonces asked for until then wait on the sync
+            if (!synced.get()) {
+                account.sync = sync;
+            }
+        }
+    }
+
+    static boolean isNonceError(Throwable error) {
+        String message = error == null || error.getMessage() == null ? "" : error.getMessage().toLowerCase();
+        for (String nonceError : NONCE_ERRORS) {
+            if (message.contains(nonceError)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,97 @@
+package org.polkadot.api;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.onehilltech.promises.Promise;
+import org.apache.commons.lang3.tuple.Pair;
+
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Bounded LRU cache of storage reads, keyed by (block hash, storage key).
+ * Reads of the latest state are done at the current head (as received from chain_subscribeNewHead), so the
+ * entries of a block stay valid after the chain moved on and can be reused by reads at that block hash.
+ * Pending reads are cached as well, concurrent reads of the same key at the same block share one request.
+ */
+public class StorageCache {
+
+    public static final long DEFAULT_SIZE = 4096;
+
+    private final Cache<Pair<String, String>, Promise> cache;
+    private volatile String head;
+
+    public StorageCache() {
+        this(DEFAULT_SIZE);
+    }
+
+    public StorageCache(long maximumSize) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * The hash of the latest head, null until the first head has been received
+     */
+    public String getHead() {
+        return this.head;
+    }
+
+    void setHead(String head) {
+        this.head = head;
+    }
+
+    /**
+     * Returns the cached read of the key at the block, or caches the read supplied. Failed reads
+     * (resolving to null or rejected) are not kept.
+     */
+    public Promise get(String blockHash, String key, Supplier<Promise> read) {
+        Pair<String, String> cacheKey = Pair.of(blockHash, key);
+        try {
+            return this.cache.get(cacheKey, () -> read.get()
+                    .then(result -> {
+                        if (result == null) {
+                            this.cache.invalidate(cacheKey);
+                        }
+                        return Promise.value(result);
+                    })
+                    ._catch(err -> {
+                        this.cache.invalidate(cacheKey);
+                        return Promise.reject(err);
+                    }));
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Unable to read " + key + " at " + blockHash, e.getCause());
+        }
+    }
+
+    public long getHitCount() {
+        return this.cache.stats().hitCount();
+    }
+
+    public long getMissCount() {
+        return this.cache.stats().missCount();
+    }
+
+    public long getEvictionCount() {
+        return this.cache.stats().evictionCount();
+    }
+
+    public double getHitRate() {
+        return this.cache.stats().hitRate();
+    }
+
+    public CacheStats getStats() {
+        return this.cache.stats();
+    }
+
+    public long size() {
+        return this.cache.size();
+    }
+
+    public void clear() {
+        this.cache.invalidateAll();
+    }
+}
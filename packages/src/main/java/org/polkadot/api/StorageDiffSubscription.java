@@ -0,0 +1,182 @@
+package org.polkadot.api;
+
+import com.google.common.collect.Lists;
+import com.onehilltech.promises.Promise;
+import org.polkadot.common.ExecutorsManager;
+import org.polkadot.direct.IRpcFunction;
+import org.polkadot.rpc.core.RpcCore;
+import org.polkadot.types.Codec;
+import org.polkadot.types.Types;
+import org.polkadot.types.TypesUtils;
+import org.polkadot.types.codec.Option;
+import org.polkadot.types.primitive.StorageData;
+import org.polkadot.types.primitive.StorageKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * A state_subscribeStorage that only reports the changes. The last raw value of every key is kept, a value is
+ * decoded only when its raw value changed, and the callback receives the (key, old value, new value) of the
+ * keys that changed. The values of the first notification are reported with a null old value.
+ * <p>
+ * With a window, the notifications received within the window after a change are coalesced: only the latest
+ * value of every key is compared (and decoded), a key changed and changed back does not get reported.
+ */
+public class StorageDiffSubscription {
+
+    private static final Logger logger = LoggerFactory.getLogger(StorageDiffSubscription.class);
+
+    /**
+     * The change of a storage entry
+     */
+    public static class Diff {
+        private final StorageKey key;
+        private final Codec oldValue;
+        private final Codec newValue;
+
+        Diff(StorageKey key, Codec oldValue, Codec newValue) {
+            this.key = key;
+            this.oldValue = oldValue;
+            this.newValue = newValue;
+        }
+
+        public StorageKey getKey() {
+            return key;
+        }
+
+        /**
+         * The previous value, null for the first value of the key
+         */
+        public Codec getOldValue() {
+            return oldValue;
+        }
+
+        public Codec getNewValue() {
+            return newValue;
+        }
+    }
+
+    private final RpcCore rpc;
+    private final List<StorageKey> keys;
+    private final long window;
+    private final Consumer<List<Diff>> callback;
+    private final Types.ConstructorCodec optionData = Option.with(TypesUtils.getConstructorCodec(StorageData.class));
+
+    // the last raw value (hex) and decoded value reported per key
+    private final boolean[] known;
+    private final String[] raw;
+    private final Codec[] values;
+
+    // the latest raw value per key index, received within the window
+    private final Map<Integer, String> pending = new LinkedHashMap<>();
+    private ScheduledFuture<?> flush;
+    // set by the unsubscribe, nothing is reported after it
+    private boolean closed = false;
+
+    /**
+     * @param window the time (in milliseconds) to coalesce the changes over, 0 to report every notification
+     */
+    public StorageDiffSubscription(RpcCore rpc, List<StorageKey> keys, long window, Consumer<List<Diff>> callback) {
+        assert window >= 0 : "Expected a positive window, found " + window;
+
+        this.rpc = rpc;
+        this.keys = keys;
+        this.window = window;
+        this.callback = callback;
+        this.known = new boolean[keys.size()];
+        this.raw = new String[keys.size()];
+        this.values = new Codec[keys.size()];
+    }
+
+    /**
+     * Subscribes, the promise resolves to the unsubscribe function
+     */
+    public Promise<IRpcFunction.Unsubscribe<Promise>> subscribe() {
+        RpcCore.StorageChangesCallback onChanges = this::onChanges;
+        Promise subscribe = this.rpc.state().function("subscribeStorage").invoke(this.keys.toArray(), onChanges);
+        return subscribe
+                .then(unsubscribe -> Promise.value((IRpcFunction.Unsubscribe<Promise>) () -> {
+                    // waits for a flush in progress
+                    synchronized (this) {
+                        synchronized (this.pending) {
+                            this.closed = true;
+                            if (this.flush != null) {
+                                this.flush.cancel(false);
+                            }
+                            this.pending.clear();
+                        }
+                    }
+                    return ((IRpcFunction.Unsubscribe<Promise>) unsubscribe).unsubscribe();
+                }));
+    }
+
+    /**
+     * @param changes the raw values (hex) of the keys changed, by key index
+     */
+    private void onChanges(Map<Integer, String> changes) {
+        boolean schedule;
+        synchronized (this.pending) {
+            if (this.closed) {
+                return;
+            }
+            this.pending.putAll(changes);
+            schedule = this.window > 0 && this.flush == null && !this.pending.isEmpty();
+            if (schedule) {
+                this.flush = ExecutorsManager.schedule(() -> {
+                    try {
+                        this.flush();
+                    } catch (Exception e) {
+                        logger.error("Unable to report the storage changes: {}", e.toString());
+                    }
+                }, this.window, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (this.window == 0) {
+            this.flush();
+        }
+    }
+
+    /**
+     * Reports the changes received since the last flush, decoding the values that differ from the last reported
+     */
+    private synchronized void flush() {
+        Map<Integer, String> changes;
+        synchronized (this.pending) {
+            if (this.closed) {
+                return;
+            }
+            changes = new LinkedHashMap<>(this.pending);
+            this.pending.clear();
+            this.flush = null;
+        }
+
+        List<Diff> diffs = Lists.newArrayList();
+        for (Map.Entry<Integer, String> change : changes.entrySet()) {
+            int index = change.getKey();
+            String value = change.getValue();
+            if (this.known[index] && Objects.equals(this.raw[index], value)) {
+                continue;
+            }
+
+            StorageKey key = this.keys.get(index);
+            Codec decoded = RpcCore.decodeStorageChange(key, (Option<StorageData>) this.optionData.newInstance(value));
+            diffs.add(new Diff(key, this.values[index], decoded));
+
+            this.known[index] = true;
+            this.raw[index] = value;
+            this.values[index] = decoded;
+        }
+
+        if (!diffs.isEmpty()) {
+            this.callback.accept(diffs);
+        }
+    }
+}
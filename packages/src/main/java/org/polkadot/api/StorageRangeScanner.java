@@ -0,0 +1,322 @@
+package org.polkadot.api;
+
+import com.google.common.collect.Lists;
+import com.onehilltech.promises.Promise;
+import org.apache.commons.lang3.tuple.Pair;
+import org.polkadot.direct.IRpcFunction;
+import org.polkadot.rpc.core.RpcCore;
+import org.polkadot.types.Codec;
+import org.polkadot.types.codec.Option;
+import org.polkadot.types.codec.Vector;
+import org.polkadot.types.primitive.StorageData;
+import org.polkadot.types.primitive.StorageKey;
+import org.polkadot.types.rpc.StorageChangeSet;
+import org.polkadot.types.type.Hash;
+import org.polkadot.types.type.Header;
+import org.polkadot.types.type.KeyValue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Scans the history of storage entries between two blocks with state_queryStorage, instead of reading every
+ * entry at every block. The range is split in chunks of blocks, queried in parallel (up to `concurrency` chunks at
+ * a time) and delivered in block order as a series of (block, value) points per key, a point for every change.
+ * <p>
+ * After each chunk the scan hands out a {@link Checkpoint}, a scan can be resumed from the last checkpoint kept.
+ * <p>
+ * **Example**
+ * <p>
+ * ```java
+ * api.scanStorage(Lists.newArrayList(Pair.of(freeBalance, accountId)))
+ * .scan(1, 100000)
+ * .then(series -> ...);
+ * ```
+ */
+public class StorageRangeScanner {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+    public static final int DEFAULT_CONCURRENCY = 4;
+
+    /**
+     * The value of a key from a block on
+     */
+    public static class Point {
+        private final long blockNumber;
+        private final Hash blockHash;
+        private final Codec value;
+
+        Point(long blockNumber, Hash blockHash, Codec value) {
+            this.blockNumber = blockNumber;
+            this.blockHash = blockHash;
+            this.value = value;
+        }
+
+        public long getBlockNumber() {
+            return blockNumber;
+        }
+
+        public Hash getBlockHash() {
+            return blockHash;
+        }
+
+        public Codec getValue() {
+            return value;
+        }
+    }
+
+    /**
+     * The points of a key, in block order
+     */
+    public static class Series {
+        private final StorageKey key;
+        private final List<Point> points = new ArrayList<>();
+
+        Series(StorageKey key) {
+            this.key = key;
+        }
+
+        public StorageKey getKey() {
+            return key;
+        }
+
+        public List<Point> getPoints() {
+            return points;
+        }
+    }
+
+    /**
+     * The last block scanned, with the last (encoded) value of every key, so that a resumed scan only
+     * reports the changes. The keys without value are not in the values.
+     */
+    public static class Checkpoint {
+        private final long blockNumber;
+        private final Map<String, String> values;
+
+        public Checkpoint(long blockNumber, Map<String, String> values) {
+            this.blockNumber = blockNumber;
+            this.values = values;
+        }
+
+        public long getBlockNumber() {
+            return blockNumber;
+        }
+
+        public Map<String, String> getValues() {
+            return values;
+        }
+    }
+
+    /**
+     * The change of a key in a chunk, not decoded yet
+     */
+    static class Change {
+        final long blockNumber;
+        final Hash blockHash;
+        final int index;
+        final Option<StorageData> value;
+
+        Change(long blockNumber, Hash blockHash, int index, Option<StorageData> value) {
+            this.blockNumber = blockNumber;
+            this.blockHash = blockHash;
+            this.index = index;
+            this.value = value;
+        }
+    }
+
+    private final RpcCore rpc;
+    private final List<StorageKey> keys;
+    private final Map<String, Integer> indexes = new HashMap<>();
+    private final int chunkSize;
+    private final int concurrency;
+
+    /**
+     * @param calls       the storage entries, as (function, argument(s)) like for queryMulti
+     * @param chunkSize   the number of blocks in one state_queryStorage
+     * @param concurrency the maximum number of state_queryStorage in flight
+     */
+    public StorageRangeScanner(RpcCore rpc, List<Pair<StorageKey.StorageFunction, Object>> calls, int chunkSize, int concurrency) {
+        assert chunkSize > 0 : "Expected a positive chunk size, found " + chunkSize;
+        assert concurrency > 0 : "Expected a positive concurrency, found " + concurrency;
+
+        this.rpc = rpc;
+        this.chunkSize = chunkSize;
+        this.concurrency = concurrency;
+        this.keys = Lists.newArrayList();
+        for (Pair<StorageKey.StorageFunction, Object> call : calls) {
+            Object args = call.getRight() instanceof Object[]
+                    ? call.getRight()
+                    : call.getRight() == null ? new Object[0] : new Object[]{call.getRight()};
+            StorageKey key = new StorageKey(new Object[]{call.getLeft(), args});
+            this.indexes.put(key.toHex(), this.keys.size());
+            this.keys.add(key);
+        }
+    }
+
+    /**
+     * Scans [fromBlock, toBlock], collecting the series of all keys (in the order of the calls)
+     */
+    public Promise<List<Series>> scan(long fromBlock, long toBlock) {
+        List<Series> all = this.emptySeries();
+        return this.scan(fromBlock, toBlock, null, (series, checkpoint) -> {
+            for (int i = 0; i < series.size(); i++) {
+                all.get(i).points.addAll(series.get(i).points);
+            }
+        }).then(checkpoint -> Promise.value(all));
+    }
+
+    /**
+     * Resumes a scan after the checkpoint, up to toBlock. The checkpoint is returned as-is when it is already
+     * at (or after) toBlock.
+     */
+    public Promise<Checkpoint> scan(long toBlock, Checkpoint checkpoint, BiConsumer<List<Series>, Checkpoint> onChunk) {
+        if (checkpoint.getBlockNumber() >= toBlock) {
+            return Promise.value(checkpoint);
+        }
+        return this.scan(checkpoint.getBlockNumber() + 1, toBlock, checkpoint, onChunk);
+    }
+
+    /**
+     * Scans [fromBlock, toBlock], handing the series of every chunk over in block order, along with the
+     * checkpoint after that chunk. A null checkpoint starts from empty values.
+     *
+     * @return the checkpoint at toBlock, once all the chunks are delivered, rejected when fromBlock is after toBlock
+     */
+    public Promise<Checkpoint> scan(long fromBlock, long toBlock, Checkpoint checkpoint, BiConsumer<List<Series>, Checkpoint> onChunk) {
+        if (fromBlock > toBlock) {
+            return Promise.reject(new IllegalArgumentException("Unable to scan [" + fromBlock + ", " + toBlock + "], the range is inverted"));
+        }
+
+        int chunks = (int) ((toBlock - fromBlock) / this.chunkSize + 1);
+        Map<String, String> values = new HashMap<>(checkpoint == null ? new HashMap<>() : checkpoint.getValues());
+        List<List<Change>> results = new ArrayList<>();
+        for (int i = 0; i < chunks; i++) {
+            results.add(null);
+        }
+        AtomicInteger nextChunk = new AtomicInteger(0);
+        AtomicInteger delivered = new AtomicInteger(0);
+        AtomicBoolean failed = new AtomicBoolean(false);
+
+        return new Promise<>(handler -> {
+            Runnable[] worker = new Runnable[1];
+            worker[0] = () -> {
+                int chunk = nextChunk.getAndIncrement();
+                if (chunk >= chunks || failed.get()) {
+                    return;
+                }
+                long start = fromBlock + (long) chunk * this.chunkSize;
+                long end = Math.min(toBlock, start + this.chunkSize - 1);
+
+                this.queryChunk(start, end).then(changes -> {
+                    synchronized (results) {
+                        results.set(chunk, changes);
+                        // deliver the chunks done, in order
+                        while (delivered.get() < chunks && results.get(delivered.get()) != null) {
+                            int index = delivered.getAndIncrement();
+                            long last = Math.min(toBlock, fromBlock + (long) (index + 1) * this.chunkSize - 1);
+                            List<Series> series = this.toSeries(results.get(index), values);
+                            results.set(index, new ArrayList<>());
+                            onChunk.accept(series, new Checkpoint(last, new LinkedHashMap<>(values)));
+                        }
+                        if (delivered.get() == chunks) {
+                            handler.resolve(new Checkpoint(toBlock, values));
+                            return null;
+                        }
+                    }
+                    worker[0].run();
+                    return null;
+                })._catch(err -> {
+                    if (failed.compareAndSet(false, true)) {
+                        handler.reject(err);
+                    }
+                    return null;
+                });
+            };
+
+            for (int i = 0; i < Math.min(this.concurrency, chunks); i++) {
+                worker[0].run();
+            }
+        });
+    }
+
+    /**
+     * The changes of all the keys in [start, end], the first block reporting the values of all the keys set
+     */
+    private Promise<List<Change>> queryChunk(long start, long end) {
+        IRpcFunction getBlockHash = this.rpc.chain().function("getBlockHash");
+        IRpcFunction getHeader = this.rpc.chain().function("getHeader");
+        IRpcFunction queryStorage = this.rpc.state().function("queryStorage");
+
+        return Promise.all(getBlockHash.invoke(start), getBlockHash.invoke(end))
+                .then(hashes -> {
+                    Hash startHash = (Hash) hashes.get(0);
+                    Hash endHash = (Hash) hashes.get(1);
+                    return queryStorage.invoke(this.keys, startHash, endHash)
+                            .then(result -> {
+                                List<StorageChangeSet> changeSets = (Vector<StorageChangeSet>) result;
+
+                                // only the blocks with changes past the first one need their number
+                                List<Promise> numbers = Lists.newArrayList();
+                                for (StorageChangeSet changeSet : changeSets) {
+                                    numbers.add(changeSet.getBlock().toHex().equals(startHash.toHex())
+                                            ? Promise.value(start)
+                                            : getHeader.invoke(changeSet.getBlock())
+                                            .then(header -> Promise.value(((Header) header).getBlockNumber().toNumber())));
+                                }
+                                return Promise.all(numbers.toArray(new Promise[0]))
+                                        .then(blockNumbers -> {
+                                            List<Change> changes = Lists.newArrayList();
+                                            for (int i = 0; i < changeSets.size(); i++) {
+                                                StorageChangeSet changeSet = changeSets.get(i);
+                                                long blockNumber = ((Number) blockNumbers.get(i)).longValue();
+                                                for (KeyValue.KeyValueOption change : changeSet.getChanges()) {
+                                                    Integer index = this.indexes.get(change.getKey().toHex());
+                                                    if (index != null) {
+                                                        changes.add(new Change(blockNumber, changeSet.getBlock(), index, change.getValue()));
+                                                    }
+                                                }
+                                            }
+                                            return Promise.value(changes);
+                                        });
+                            });
+                });
+    }
+
+    /**
+     * Decodes the changes into points, skipping the values equal to the previous ones (chunks all start
+     * with the values of all the keys). A key without value is like a key never set.
+     */
+    private List<Series> toSeries(List<Change> changes, Map<String, String> values) {
+        List<Series> series = this.emptySeries();
+        for (Change change : changes) {
+            StorageKey key = this.keys.get(change.index);
+            String keyHex = key.toHex();
+            String value = change.value.isNone() ? null : change.value.unwrap().toHex();
+            if (Objects.equals(value, values.get(keyHex))) {
+                continue;
+            }
+            if (value == null) {
+                values.remove(keyHex);
+            } else {
+                values.put(keyHex, value);
+            }
+            series.get(change.index).points.add(new Point(change.blockNumber, change.blockHash, RpcCore.decodeStorageChange(key, change.value)));
+        }
+        return series;
+    }
+
+    private List<Series> emptySeries() {
+        List<Series> series = Lists.newArrayList();
+        for (StorageKey key : this.keys) {
+            series.add(new Series(key));
+        }
+        return series;
+    }
+}
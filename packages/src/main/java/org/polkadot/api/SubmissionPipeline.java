@@ -0,0 +1,343 @@
+package org.polkadot.api;
+
+import com.onehilltech.promises.Promise;
+import org.polkadot.api.Types.ApiInterfacePromise;
+import org.polkadot.common.keyring.Types.KeyringPair;
+import org.polkadot.types.Types.IExtrinsic;
+import org.polkadot.types.type.SignaturePayload;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Submits many extrinsics from one account, in stages: the nonces are handed out by a {@link NonceManager}, the
+ * extrinsics are built and signed on a worker pool, and sent with author_submitExtrinsic (no watch subscription),
+ * with at most `window` submissions waiting for the node.
+ * <p>
+ * With a tracker, the extrinsics are then followed until finalized by an {@link ExtrinsicTracker} (a single head
+ * subscription and a scan of every block). Without tracker, an extrinsic is done once accepted by the node.
+ * <p>
+ * The submission resolves to a {@link Report}, with the result of every extrinsic, the throughput and the latencies.
+ * <p>
+ * **Example**
+ * <p>
+ * ```java
+ * List<Supplier<SubmittableExtrinsic<?>>> transfers = ...;
+ * api.submissionPipeline(256, true)
+ * .submit(alice, transfers)
+ * .then(report -> System.out.println(report.getThroughput() + " tx/s, p99 " + report.getSubmitLatency(99) + "ms"));
+ * ```
+ */
+public class SubmissionPipeline {
+
+    public static final int DEFAULT_WINDOW = 256;
+
+    /**
+     * The outcome of one extrinsic
+     */
+    public static class Result {
+        private final int index;
+        private final long started;
+        private volatile String hash;
+        private volatile Throwable error;
+        private volatile long accepted;
+        private volatile long finalized;
+        private volatile String blockHash;
+
+        Result(int index) {
+            this.index = index;
+            this.started = System.nanoTime();
+        }
+
+        /**
+         * The position of the extrinsic in the submitted ones
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * The extrinsic hash (hex), null when it could not be signed
+         */
+        public String getHash() {
+            return hash;
+        }
+
+        /**
+         * Why the extrinsic was not built, signed or accepted, null otherwise
+         */
+        public Throwable getError() {
+            return error;
+        }
+
+        /**
+         * The finalized block (hex) including the extrinsic, null when not tracked
+         */
+        public String getBlockHash() {
+            return blockHash;
+        }
+
+        public boolean isAccepted() {
+            return this.accepted > 0;
+        }
+
+        public boolean isFinalized() {
+            return this.blockHash != null;
+        }
+    }
+
+    /**
+     * The results of a submission, with the throughput and the latencies (in milliseconds) from the start of
+     * an extrinsic to its acceptance by the node, and to its finalization.
+     */
+    public static class Report {
+        private final List<Result> results;
+        private final double seconds;
+        private final long[] submitLatencies;
+        private final long[] finalizeLatencies;
+
+        Report(List<Result> results, double seconds) {
+            this.results = results;
+            this.seconds = seconds;
+            this.submitLatencies = results.stream()
+                    .filter(Result::isAccepted)
+                    .mapToLong(result -> (result.accepted - result.started) / 1000000)
+                    .sorted().toArray();
+            this.finalizeLatencies = results.stream()
+                    .filter(Result::isFinalized)
+                    .mapToLong(result -> (result.finalized - result.started) / 1000000)
+                    .sorted().toArray();
+        }
+
+        public List<Result> getResults() {
+            return results;
+        }
+
+        public long getAccepted() {
+            return this.submitLatencies.length;
+        }
+
+        public long getFinalized() {
+            return this.finalizeLatencies.length;
+        }
+
+        public long getFailed() {
+            return this.results.stream().filter(result -> result.error != null).count();
+        }
+
+        public double getSeconds() {
+            return seconds;
+        }
+
+        /**
+         * The extrinsics accepted per second
+         */
+        public double getThroughput() {
+            return this.seconds > 0 ? this.submitLatencies.length / this.seconds : 0;
+        }
+
+        /**
+         * The latency (in milliseconds) under which the percentile (0-100) of the accepted extrinsics were accepted
+         */
+        public long getSubmitLatency(double percentile) {
+            return percentile(this.submitLatencies, percentile);
+        }
+
+        /**
+         * The latency (in milliseconds) under which the percentile (0-100) of the finalized extrinsics were finalized
+         */
+        public long getFinalizeLatency(double percentile) {
+            return percentile(this.finalizeLatencies, percentile);
+        }
+
+        static long percentile(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return -1;
+            }
+            int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+            return sorted[Math.min(sorted.length - 1, Math.max(0, index))];
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d extrinsics in %.1fs (%.1f/s), %d accepted (p50 %dms, p99 %dms), %d finalized (p50 %dms, p99 %dms), %d failed",
+                    this.results.size(), this.seconds, this.getThroughput(),
+                    this.getAccepted(), this.getSubmitLatency(50), this.getSubmitLatency(99),
+                    this.getFinalized(), this.getFinalizeLatency(50), this.getFinalizeLatency(99),
+                    this.getFailed());
+        }
+    }
+
+    private final ApiInterfacePromise api;
+    private final NonceManager nonceManager;
+    private final int window;
+    private final ExtrinsicTracker tracker;
+    private final Executor workers;
+
+    /**
+     * @param nonceManager the nonces of the signing accounts
+     * @param window       the maximum number of submissions waiting for the node
+     * @param tracker      follows the extrinsics until included, null when not tracked
+     * @param workers      builds and signs the extrinsics
+     */
+    public SubmissionPipeline(ApiInterfacePromise api, NonceManager nonceManager, int window, ExtrinsicTracker tracker, Executor workers) {
+        assert window > 0 : "Expected a positive window, found " + window;
+
+        this.api = api;
+        this.nonceManager = nonceManager;
+        this.window = window;
+        this.tracker = tracker;
+        this.workers = workers;
+    }
+
+    /**
+     * Builds, signs and submits the extrinsics with the account
+     *
+     * @return the report, once every extrinsic is accepted (finalized when tracked) or failed
+     */
+    public Promise<Report> submit(KeyringPair account, List<Supplier<SubmittableExtrinsic<?>>> calls) {
+        Submission submission = new Submission(account, calls);
+        return submission.start();
+    }
+
+    /**
+     * The state of one submit
+     */
+    private class Submission {
+        private final KeyringPair account;
+        private final String address;
+        private final List<Supplier<SubmittableExtrinsic<?>>> calls;
+        private final List<Result> results;
+        private final long started = System.nanoTime();
+        // the era and block hash, shared by all the signing payloads
+        private final SignaturePayload.Batch payload = new SignaturePayload.Batch(null, SubmissionPipeline.this.api.getGenesisHash());
+
+        private final AtomicInteger next = new AtomicInteger(0);
+        private final AtomicInteger done = new AtomicInteger(0);
+        // the nonce of every extrinsic, by index
+        private final Map<Integer, Long> nonces = new ConcurrentHashMap<>();
+
+        private Consumer<Report> resolve;
+
+        Submission(KeyringPair account, List<Supplier<SubmittableExtrinsic<?>>> calls) {
+            this.account = account;
+            this.address = account.address();
+            this.calls = calls;
+            this.results = new ArrayList<>(Arrays.asList(new Result[calls.size()]));
+        }
+
+        Promise<Report> start() {
+            return new Promise<>(handler -> {
+                this.resolve = handler::resolve;
+                if (this.calls.isEmpty()) {
+                    this.complete();
+                    return;
+                }
+                for (int i = 0; i < Math.min(SubmissionPipeline.this.window, this.calls.size()); i++) {
+                    this.submitNext();
+                }
+            });
+        }
+
+        /**
+         * Takes the next extrinsic through the stages, the next one starting once it is accepted (or failed)
+         */
+        private void submitNext() {
+            int index = this.next.getAndIncrement();
+            if (index >= this.calls.size()) {
+                return;
+            }
+            Result result = new Result(index);
+            this.results.set(index, result);
+            ExtrinsicTracker tracker = SubmissionPipeline.this.tracker;
+
+            SubmissionPipeline.this.nonceManager.next(this.address)
+                    .then(nonce -> this.sign(index, nonce))
+                    .then(extrinsic -> {
+                        result.hash = extrinsic.getHash().toHex();
+                        if (tracker != null) {
+                            // followed before sending, the block may be scanned before the answer is received
+                            this.track(tracker, result);
+                        }
+                        return SubmissionPipeline.this.api.rpc().author().function("submitExtrinsic").invoke(extrinsic);
+                    })
+                    .then(hash -> {
+                        result.accepted = System.nanoTime();
+                        SubmissionPipeline.this.nonceManager.submitted(this.address, this.nonce(result));
+                        if (tracker == null) {
+                            this.done();
+                        }
+                        this.submitNext();
+                        return null;
+                    })
+                    ._catch(err -> {
+                        result.error = err;
+                        if (this.nonces.containsKey(index)) {
+                            SubmissionPipeline.this.nonceManager.failed(this.address, this.nonce(result), err);
+                        }
+                        if (tracker != null && result.hash != null) {
+                            // done once the tracking is rejected
+                            tracker.cancel(result.hash);
+                        } else {
+                            this.done();
+                        }
+                        this.submitNext();
+                        return null;
+                    });
+        }
+
+        private void track(ExtrinsicTracker tracker, Result result) {
+            tracker.track(result.hash)
+                    .then(inclusion -> {
+                        result.finalized = System.nanoTime();
+                        result.blockHash = inclusion.getBlockHash();
+                        this.done();
+                        return null;
+                    })
+                    ._catch(err -> {
+                        // not included in time, or not accepted
+                        if (result.error == null) {
+                            result.error = err;
+                        }
+                        this.done();
+                        return null;
+                    });
+        }
+
+        private long nonce(Result result) {
+            return this.nonces.get(result.index);
+        }
+
+        /**
+         * Builds and signs the extrinsic on the workers
+         */
+        private Promise<IExtrinsic> sign(int index, long nonce) {
+            this.nonces.put(index, nonce);
+            return new Promise<>(handler -> SubmissionPipeline.this.workers.execute(() -> {
+                try {
+                    SubmittableExtrinsic<?> extrinsic = this.calls.get(index).get();
+                    handler.resolve(this.payload.sign(this.account, extrinsic, nonce));
+                } catch (Throwable e) {
+                    handler.reject(e);
+                }
+            }));
+        }
+
+        private void done() {
+            if (this.done.incrementAndGet() == this.calls.size()) {
+                this.complete();
+            }
+        }
+
+        private void complete() {
+            this.resolve.accept(new Report(this.results, (System.nanoTime() - this.started) / 1e9));
+        }
+    }
+}
@@ -315,6 +315,38 @@ public interface SubmittableExtrinsic<ApplyResult> extends Types.IExtrinsic {
                 return signatureOptions;
             }
 
+            /**
+             * The nonce to sign with, from the nonce manager when there is one, else the on-chain nonce
+             */
+            private Promise nextNonce(String address) {
+                NonceManager nonceManager = apiPromise.getNonceManager();
+                if (nonceManager != null) {
+                    return nonceManager.next(address);
+                }
+                QueryableModuleStorage<Promise> system = apiPromise.query().section("system");
+                QueryableStorageFunction<Promise> accountNonce = system.function("accountNonce");
+                return accountNonce.call(address);
+            }
+
+            /**
+             * Reports the outcome of the submission signed with the options nonce to the nonce manager
+             */
+            private Promise trackNonce(String address, Types.SignatureOptions options, Promise submission) {
+                NonceManager nonceManager = apiPromise.getNonceManager();
+                if (nonceManager == null) {
+                    return submission;
+                }
+                return submission.then(result -> {
+                    nonceManager.submitted(address, ((Number) options.getNonce()).longValue());
+                    return Promise.value(result);
+                })._catch(err -> {
+                    if (options.getNonce() != null) {
+                        nonceManager.failed(address, ((Number) options.getNonce()).longValue(), err);
+                    }
+                    return Promise.reject(err);
+                });
+            }
+
             @Override
             public ApplyResult send() {
                 boolean isSubscription = noStatusCb;
@@ -412,9 +444,7 @@ public interface SubmittableExtrinsic<ApplyResult> extends Types.IExtrinsic {
                 String address = isKeyringPair ? ((KeyringPair) account).address() : account.toString();
                 //AtomicInteger updateId = new AtomicInteger();
 
-                QueryableModuleStorage<Promise> system = apiPromise.query().section("system");
-                QueryableStorageFunction<Promise> accountNonce = system.function("accountNonce");
-                Promise call = accountNonce.call(address);
+                Promise call = nextNonce(address);
 
                 SubmittableExtrinsic self = this;
 
@@ -422,7 +452,7 @@ public interface SubmittableExtrinsic<ApplyResult> extends Types.IExtrinsic {
                         new OnCallFunction() {
                             @Override
                             public Promise apply(Object... params) {
-                                return call.then((nonce) -> {
+                                return trackNonce(address, options, call.then((nonce) -> {
                                     if (isKeyringPair) {
                                         options.setNonce(nonce);
                                         self.sign((KeyringPair) account, options);
@@ -439,7 +469,7 @@ public interface SubmittableExtrinsic<ApplyResult> extends Types.IExtrinsic {
 
                                 }).then((updateId) -> {
                                     return sendObservable(apiPromise, (Integer) updateId, _extrinsic);
-                                });
+                                }));
 
                             }
                         },
@@ -457,9 +487,7 @@ public interface SubmittableExtrinsic<ApplyResult> extends Types.IExtrinsic {
                 String address = isKeyringPair ? ((KeyringPair) account).address() : account.toString();
                 //AtomicInteger updateId = new AtomicInteger();
 
-                QueryableModuleStorage<Promise> system = apiPromise.query().section("system");
-                QueryableStorageFunction<Promise> accountNonce = system.function("accountNonce");
-                Promise call = accountNonce.call(address);
+                Promise call = nextNonce(address);
                 SubmittableExtrinsic self = this;
 
 
@@ -481,9 +509,9 @@ public interface SubmittableExtrinsic<ApplyResult> extends Types.IExtrinsic {
                                 }
 
                                 StatusCb finalStatusCb = statusCb;
-                                return call.then((nonce) -> {
+                                return trackNonce(address, options, call.then((nonce) -> {
+                                    options.setNonce(nonce);
                                     if (isKeyringPair) {
-                                        options.setNonce(nonce);
                                         self.sign((KeyringPair) account, options);
                                         return Promise.value(-1);
                                     } else {
@@ -496,7 +524,7 @@ public interface SubmittableExtrinsic<ApplyResult> extends Types.IExtrinsic {
 
                                 }).then((updateId) -> {
                                     return subscribeObservable(apiPromise, (Integer) updateId, _extrinsic, finalStatusCb);
-                                });
+                                }));
                             }
                         },
                         Lists.newArrayList(),
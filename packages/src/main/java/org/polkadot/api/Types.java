@@ -3,7 +3,10 @@ package org.polkadot.api;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.onehilltech.promises.Promise;
+import org.apache.commons.lang3.tuple.Pair;
 import org.polkadot.api.derive.Index;
+import org.polkadot.api.derive.balances.FeesCache;
+import org.polkadot.api.derive.chain.HeaderChain;
 import org.polkadot.common.EventEmitter;
 import org.polkadot.direct.*;
 import org.polkadot.rpc.provider.IProvider;
@@ -14,6 +17,8 @@ import org.polkadot.types.primitive.Method;
 import org.polkadot.types.primitive.StorageKey;
 
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 public interface Types {
 
@@ -58,6 +63,12 @@ public interface Types {
         public abstract String key(Object arg);
 
         public abstract ApplyResult size(Object arg);
+
+        /**
+         * Subscribes to the entries of the arguments (null for a plain entry), reporting only the changes,
+         * coalesced over the window (in milliseconds, 0 to report every notification)
+         */
+        public abstract Promise<IRpcFunction.Unsubscribe<Promise>> subscribeDiffs(List<?> args, long window, Consumer<List<StorageDiffSubscription.Diff>> callback);
     }
 
     class QueryableModuleStorage<ApplyResult> extends ISection<QueryableStorageFunction<ApplyResult>> {
@@ -82,6 +93,34 @@ public interface Types {
         }
     }
 
+    /**
+     * Storage sections decorated on first access
+     */
+    class LazyQueryableStorage<ApplyResult> extends QueryableStorage<ApplyResult> {
+        private final Set<String> names;
+        private final Function<String, QueryableModuleStorage<ApplyResult>> decorate;
+
+        LazyQueryableStorage(Set<String> names, Function<String, QueryableModuleStorage<ApplyResult>> decorate) {
+            this.names = names;
+            this.decorate = decorate;
+        }
+
+        @Override
+        public QueryableModuleStorage<ApplyResult> section(String section) {
+            if (!this.names.contains(section)) {
+                return null;
+            }
+            synchronized (this.sections) {
+                return this.sections.computeIfAbsent(section, this.decorate);
+            }
+        }
+
+        @Override
+        public Set<String> sectionNames() {
+            return this.names;
+        }
+    }
+
     abstract class SubmittableExtrinsicFunction<ApplyResult> extends Method.MethodFunction {
         //(...params: Array<CodecArg>): SubmittableExtrinsic<CodecResult, SubscriptionResult>;
         public abstract SubmittableExtrinsic<ApplyResult> call(Object... params);
@@ -111,6 +150,33 @@ public interface Types {
         }
     }
 
+    /**
+     * Extrinsic sections decorated on first access
+     */
+    class LazySubmittableExtrinsics<ApplyResult> extends SubmittableExtrinsics<ApplyResult> {
+        private final Set<String> names;
+        private final Function<String, SubmittableModuleExtrinsics> decorate;
+
+        LazySubmittableExtrinsics(Set<String> names, Function<String, SubmittableModuleExtrinsics> decorate) {
+            this.names = names;
+            this.decorate = decorate;
+        }
+
+        @Override
+        public SubmittableModuleExtrinsics section(String section) {
+            if (!this.names.contains(section)) {
+                return null;
+            }
+            synchronized (this.sections) {
+                return this.sections.computeIfAbsent(section, this.decorate);
+            }
+        }
+
+        @Override
+        public Set<String> sectionNames() {
+            return this.names;
+        }
+    }
 
     interface Signer {
         /**
@@ -166,6 +232,30 @@ public interface Types {
 
     interface ApiInterfacePromise extends IApi<Promise> {
 
+        /**
+         * Queries multiple storage entries, see {@link ApiBase#queryMulti(List)}
+         */
+        Promise queryMulti(List<Pair<StorageKey.StorageFunction, Object>> calls);
+
+        /**
+         * Subscribes to the changes of multiple storage entries, see {@link ApiBase#subscribeDiffs(List, long, Consumer)}
+         */
+        Promise<IRpcFunction.Unsubscribe<Promise>> subscribeDiffs(List<Pair<StorageKey.StorageFunction, Object>> calls, long window, Consumer<List<StorageDiffSubscription.Diff>> callback);
+
+        /**
+         * The nonce manager used by signAndSend, null when the nonces are read for every extrinsic
+         */
+        NonceManager getNonceManager();
+
+        /**
+         * The fees kept up to date for the derives, see {@link ApiBase#getFeesCache()}
+         */
+        FeesCache getFeesCache();
+
+        /**
+         * The last headers of the best chain, see {@link ApiBase#getHeaderChain()}
+         */
+        HeaderChain getHeaderChain();
     }
 
     class ApiOptions {
@@ -193,6 +283,28 @@ public interface Types {
          * uses types not available in the base Substrate runtime.
          */
         Map<String, ConstructorCodec> types;
+        /**
+         * The number of keys sent in one state_subscribeStorage by queryMulti
+         */
+        int queryMultiBatchSize = ApiBase.DEFAULT_QUERY_MULTI_BATCH_SIZE;
+        /**
+         * The maximum number of storage reads cached per (block hash, key), 0 to disable the cache
+         */
+        long storageCacheSize = 0;
+        /**
+         * The cache of the runtime metadata, null to always fetch and decode the metadata
+         */
+        MetadataCache metadataCache;
+        /**
+         * Creates and decorates the storage functions and extrinsics of a module on the first access to its section,
+         * instead of all of them when the metadata is loaded
+         */
+        boolean lazyModules = false;
+        /**
+         * Hands the nonces of signAndSend out from a {@link NonceManager}, instead of reading the account nonce
+         * for every extrinsic
+         */
+        boolean manageNonces = false;
 
         public Index.DeriveCustom getDerives() {
             return derives;
@@ -233,6 +345,46 @@ public interface Types {
         public void setTypes(Map<String, ConstructorCodec> types) {
             this.types = types;
         }
+
+        public int getQueryMultiBatchSize() {
+            return queryMultiBatchSize;
+        }
+
+        public void setQueryMultiBatchSize(int queryMultiBatchSize) {
+            this.queryMultiBatchSize = queryMultiBatchSize;
+        }
+
+        public long getStorageCacheSize() {
+            return storageCacheSize;
+        }
+
+        public void setStorageCacheSize(long storageCacheSize) {
+            this.storageCacheSize = storageCacheSize;
+        }
+
+        public MetadataCache getMetadataCache() {
+            return metadataCache;
+        }
+
+        public void setMetadataCache(MetadataCache metadataCache) {
+            this.metadataCache = metadataCache;
+        }
+
+        public boolean isLazyModules() {
+            return lazyModules;
+        }
+
+        public void setLazyModules(boolean lazyModules) {
+            this.lazyModules = lazyModules;
+        }
+
+        public boolean isManageNonces() {
+            return manageNonces;
+        }
+
+        public void setManageNonces(boolean manageNonces) {
+            this.manageNonces = manageNonces;
+        }
     }
 
 
@@ -28,6 +28,7 @@ public class Index {
 
         functions.addSection("balances", new DeriveCustomSection());
         functions.section("balances").addFunction("fees", BalancesFunctions::fees);
+        functions.section("balances").addFunction("estimateFees", BalancesFunctions::estimateFees);
         functions.section("balances").addFunction("validatingBalance", BalancesFunctions::validatingBalance);
         functions.section("balances").addFunction("validatingBalances", BalancesFunctions::validatingBalances);
         functions.section("balances").addFunction("votingBalance", BalancesFunctions::votingBalance);
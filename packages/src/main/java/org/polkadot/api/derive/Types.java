@@ -50,6 +50,33 @@ public interface Types {
             this.transactionByteFee = transactionByteFee;
             this.transferFee = transferFee;
         }
+
+        public BigInteger getCreationFee() {
+            return creationFee;
+        }
+
+        public BigInteger getExistentialDeposit() {
+            return existentialDeposit;
+        }
+
+        public BigInteger getTransactionBaseFee() {
+            return transactionBaseFee;
+        }
+
+        public BigInteger getTransactionByteFee() {
+            return transactionByteFee;
+        }
+
+        public BigInteger getTransferFee() {
+            return transferFee;
+        }
+
+        /**
+         * The transaction fee of an extrinsic of the encoded length: the base fee and the fee per byte
+         */
+        public BigInteger estimate(int length) {
+            return transactionBaseFee.add(transactionByteFee.multiply(BigInteger.valueOf(length)));
+        }
     }
 
     class DerivedBalancesMap extends LinkedHashMap<String, DerivedBalances> {
@@ -1,12 +1,14 @@
 package org.polkadot.api.derive.accounts;
 
 import com.onehilltech.promises.Promise;
+import org.apache.commons.lang3.tuple.Pair;
 import org.polkadot.api.ApiBase;
 import org.polkadot.api.Types.ApiInterfacePromise;
 import org.polkadot.api.Types.QueryableModuleStorage;
 import org.polkadot.api.derive.Types;
 import org.polkadot.common.keyring.address.AddressCodec;
 import org.polkadot.types.codec.Vector;
+import org.polkadot.types.primitive.StorageKey;
 import org.polkadot.types.type.AccountId;
 import org.polkadot.types.type.AccountIndex;
 import org.polkadot.utils.Utils;
@@ -75,18 +77,19 @@ public class AccountFunctions {
                             // a range of values to query [0, 1, 2, ...]
                             AccountIndex next = (AccountIndex) result;
 
-                            List<Promise> list = new ArrayList<>();
+                            StorageKey.StorageFunction enumSet = api.query().section("indices").function("enumSet");
+
+                            List<Pair<StorageKey.StorageFunction, Object>> calls = new ArrayList<>();
                             for (int index = 0; index < next.intValue() + 1; index++) {
 
                                 //api.query.indices.enumSet(index)
                                 // retrieve the full enum set for the specific index - each query can return
                                 // up to ENUMSET_SIZE (64) records, each containing an AccountId
-                                Promise call = api.query().section("indices").function("enumSet").call(index);
-
-                                list.add(call);
+                                calls.add(Pair.of(enumSet, index));
                             }
 
-                            return Promise.all(list.toArray(new Promise[0]));
+                            // all the sets are retrieved with a single (batched) query
+                            return api.queryMulti(calls);
                         }).then((results) -> {
                             AccountIndexes ret = new AccountIndexes();
 
@@ -3,56 +3,62 @@ package org.polkadot.api.derive.balances;
 import com.google.common.collect.Lists;
 import com.onehilltech.promises.Promise;
 import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.lang3.tuple.Pair;
 import org.polkadot.api.ApiBase;
 import org.polkadot.api.Types.ApiInterfacePromise;
-import org.polkadot.api.Types.QueryableModuleStorage;
 import org.polkadot.api.derive.Types;
 import org.polkadot.api.derive.accounts.AccountFunctions;
 import org.polkadot.api.derive.accounts.AccountFunctions.AccountIdAndIndex;
+import org.polkadot.types.Codec;
+import org.polkadot.types.primitive.StorageKey;
 import org.polkadot.types.type.AccountId;
 import org.polkadot.types.type.Balance;
+import org.polkadot.utils.Utils;
 
 import java.math.BigInteger;
+import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 
 public class BalancesFunctions {
 
 
+    /**
+     * The fees, from the {@link FeesCache} of the api (one subscription kept for all the reads)
+     */
     public static Types.DeriveRealFunction fees(ApiInterfacePromise api) {
         return new Types.DeriveRealFunction() {
             // (): Observable<DerivedFees> => {
             @Override
             public Promise call(Object... args) {
+                return api.getFeesCache().get();
+            }
+        };
 
-                QueryableModuleStorage<Promise> feesSection = api.query().section("fees");
-                return Promise.all(
-                        api.query().section("balances").function("creationFee").call(),
-
-                        api.query().section("balances").function("existentialDeposit").call(),
-
-                        feesSection != null
-                                ? feesSection.function("transactionBaseFee").call()
-                                : api.query().section("balances").function("transactionBaseFee").call(),
-
-                        feesSection != null
-                                ? feesSection.function("transactionByteFee").call()
-                                : api.query().section("balances").function("transactionByteFee").call(),
-
-                        api.query().section("balances").function("transferFee").call()
-                ).then((results) -> {
-                    //creationFee, existentialDeposit, transactionBaseFee, transactionByteFee, transferFee
-                    BigInteger creationFee = (BigInteger) results.get(0);
-                    BigInteger existentialDeposit = (BigInteger) results.get(1);
-                    BigInteger transactionBaseFee = (BigInteger) results.get(2);
-                    BigInteger transactionByteFee = (BigInteger) results.get(3);
-                    BigInteger transferFee = (BigInteger) results.get(4);
+    }
 
-                    return Promise.value(new Types.DerivedFees(creationFee, existentialDeposit, transactionBaseFee, transactionByteFee, transferFee));
-                });
+    /**
+     * The transaction fees of a list of extrinsics (encoded, as hex or bytes, or codecs), from their encoded
+     * length and the cached fees, without a query per extrinsic
+     */
+    public static Types.DeriveRealFunction estimateFees(ApiInterfacePromise api) {
+        return new Types.DeriveRealFunction() {
+            @Override
+            public Promise call(Object... args) {
+                List<?> extrinsics = args[0] instanceof List ? (List<?>) args[0] : Arrays.asList(args);
+                return api.getFeesCache().estimate(extrinsics);
             }
         };
+    }
 
+    /**
+     * The length of the extrinsic as sent to the node (with its length prefix)
+     */
+    static int encodedLength(Object extrinsic) {
+        if (extrinsic instanceof Codec) {
+            return ((Codec) extrinsic).toU8a().length;
+        }
+        return Utils.u8aToU8a(extrinsic).length;
     }
 
     public static AccountId EMPTY_ACCOUNT = new AccountId(new byte[32]);
@@ -85,32 +91,31 @@ public class BalancesFunctions {
                         })
                         .then(results -> {
                             List resultList = (List) results;
-                            AccountId accountId = resultList.get(0) == null
-                                    ? EMPTY_ACCOUNT
-                                    : (AccountId) resultList.get(0);
-
-                            Balance freeBalance = resultList.get(1) == null
-                                    ? new Balance(0)
-                                    : (Balance) resultList.get(1);
-
-                            Balance reservedBalance = resultList.get(2) == null
-                                    ? new Balance(0)
-                                    : (Balance) resultList.get(2);
-
-                            Types.DerivedBalances derivedBalances = new Types.DerivedBalances(
-                                    accountId,
-                                    freeBalance,
-                                    new Balance(0),
-                                    reservedBalance,
-                                    new Balance(0),
-                                    new Balance(freeBalance.add(reservedBalance)),
-                                    null);
-                            return Promise.value(derivedBalances);
+                            return Promise.value(derivedBalances(resultList.get(0), resultList.get(1), resultList.get(2)));
                         });
             }
         };
     }
 
+    private static Types.DerivedBalances derivedBalances(Object accountId, Object freeBalance, Object reservedBalance) {
+        Balance free = freeBalance == null
+                ? new Balance(0)
+                : (Balance) freeBalance;
+
+        Balance reserved = reservedBalance == null
+                ? new Balance(0)
+                : (Balance) reservedBalance;
+
+        return new Types.DerivedBalances(
+                accountId == null ? EMPTY_ACCOUNT : (AccountId) accountId,
+                free,
+                new Balance(0),
+                reserved,
+                new Balance(0),
+                new Balance(free.add(reserved)),
+                null);
+    }
+
 
     public static Types.DeriveRealFunction votingBalances(ApiInterfacePromise api) {
 
@@ -123,10 +128,44 @@ public class BalancesFunctions {
                 if (CollectionUtils.isNotEmpty(addresses)) {
                     List<Promise> promiseList = addresses
                             .stream()
-                            .map(address -> votingBalance(api).call(address))
+                            .map(address -> AccountFunctions.idAndIndex(api).call(address))
                             .collect(Collectors.toList());
 
-                    return Promise.all(promiseList.toArray(new Promise[0]));
+                    // the free & reserved balances of all the accounts found are retrieved in a single query
+                    StorageKey.StorageFunction freeBalance = api.query().section("balances").function("freeBalance");
+                    StorageKey.StorageFunction reservedBalance = api.query().section("balances").function("reservedBalance");
+
+                    return Promise.all(promiseList.toArray(new Promise[0]))
+                            .then(results -> {
+                                List<AccountId> accountIds = Lists.newArrayList();
+                                List<Pair<StorageKey.StorageFunction, Object>> calls = Lists.newArrayList();
+                                for (Object result : results) {
+                                    AccountId accountId = ((AccountIdAndIndex) result).accountId;
+                                    accountIds.add(accountId);
+                                    if (accountId != null) {
+                                        calls.add(Pair.of(freeBalance, accountId));
+                                        calls.add(Pair.of(reservedBalance, accountId));
+                                    }
+                                }
+
+                                return Promise.all(Promise.value(accountIds), api.queryMulti(calls));
+                            })
+                            .then(results -> {
+                                List<AccountId> accountIds = (List<AccountId>) results.get(0);
+                                List<Object> balances = (List<Object>) results.get(1);
+
+                                List<Types.DerivedBalances> ret = Lists.newArrayList();
+                                int offset = 0;
+                                for (AccountId accountId : accountIds) {
+                                    if (accountId != null) {
+                                        ret.add(derivedBalances(accountId, balances.get(offset), balances.get(offset + 1)));
+                                        offset += 2;
+                                    } else {
+                                        ret.add(derivedBalances(null, null, null));
+                                    }
+                                }
+                                return Promise.value(ret);
+                            });
                 } else {
                     return Promise.value(Lists.newArrayList());
                 }
@@ -0,0 +1,152 @@
+package org.polkadot.api.derive.balances;
+
+import com.google.common.collect.Lists;
+import com.onehilltech.promises.Promise;
+import org.apache.commons.lang3.tuple.Pair;
+import org.polkadot.api.StorageDiffSubscription;
+import org.polkadot.api.Types.ApiInterfacePromise;
+import org.polkadot.api.Types.QueryableModuleStorage;
+import org.polkadot.api.Types.QueryableStorageFunction;
+import org.polkadot.api.derive.Types.DerivedFees;
+import org.polkadot.common.Deferred;
+import org.polkadot.direct.IRpcFunction;
+import org.polkadot.types.primitive.StorageKey;
+import org.polkadot.utils.Utils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The fees of an API, read with one storage subscription (covering the five fee entries) and kept up to date by
+ * it: `derive.balances.fees` resolves from memory once the first values are received. The subscription is made
+ * again when the runtime version changes, the fee entries may have moved.
+ */
+public class FeesCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(FeesCache.class);
+
+    private final ApiInterfacePromise api;
+
+    // the runtime (spec version) the subscription was made for
+    private String specVersion;
+    private Promise<IRpcFunction.Unsubscribe<Promise>> subscription;
+    // resolved with the first values of the subscription
+    private Deferred<DerivedFees> first;
+
+    // creationFee, existentialDeposit, transactionBaseFee, transactionByteFee, transferFee
+    private final BigInteger[] values = new BigInteger[5];
+    private volatile DerivedFees fees;
+
+    public FeesCache(ApiInterfacePromise api) {
+        this.api = api;
+    }
+
+    /**
+     * The current fees, read once per runtime
+     */
+    public synchronized Promise<DerivedFees> get() {
+        String specVersion = this.api.getRuntimeVersion().getSpecVersion().toString();
+        if (!specVersion.equals(this.specVersion)) {
+            this.subscribe(specVersion);
+        }
+
+        DerivedFees fees = this.fees;
+        return fees != null ? Promise.value(fees) : this.first.promise();
+    }
+
+    /**
+     * The transaction fees of the extrinsics (encoded, as hex or bytes, or codecs), from their encoded length
+     */
+    public Promise<List<BigInteger>> estimate(List<?> extrinsics) {
+        return this.get().then(fees -> {
+            List<BigInteger> estimates = Lists.newArrayListWithCapacity(extrinsics.size());
+            for (Object extrinsic : extrinsics) {
+                estimates.add(fees.estimate(BalancesFunctions.encodedLength(extrinsic)));
+            }
+            return Promise.value(estimates);
+        });
+    }
+
+    /**
+     * Drops the subscription, the fees are read again on the next call
+     */
+    public synchronized void close() {
+        this.unsubscribe();
+        if (this.first != null) {
+            this.first.reject(new IllegalStateException("The fees cache is closed"));
+        }
+        this.specVersion = null;
+        this.fees = null;
+    }
+
+    private void unsubscribe() {
+        if (this.subscription != null) {
+            this.subscription.then(unsubscribe -> unsubscribe.unsubscribe())._catch(err -> {
+                logger.warn("Unable to unsubscribe from the fees: {}", err.toString());
+                return null;
+            });
+            this.subscription = null;
+        }
+    }
+
+    private void subscribe(String specVersion) {
+        this.unsubscribe();
+        this.specVersion = specVersion;
+        this.fees = null;
+        Arrays.fill(this.values, null);
+        this.first = new Deferred<>();
+
+        QueryableModuleStorage<Promise> balances = this.api.query().section("balances");
+        QueryableModuleStorage<Promise> feesSection = this.api.query().section("fees");
+        QueryableModuleStorage<Promise> transactionFees = feesSection != null ? feesSection : balances;
+        List<Pair<StorageKey.StorageFunction, Object>> calls = Lists.newArrayList(
+                Pair.of(balances.function("creationFee"), null),
+                Pair.of(balances.function("existentialDeposit"), null),
+                Pair.of(transactionFees.function("transactionBaseFee"), null),
+                Pair.of(transactionFees.function("transactionByteFee"), null),
+                Pair.of(balances.function("transferFee"), null));
+
+        List<String> keys = Lists.newArrayList();
+        for (Pair<StorageKey.StorageFunction, Object> call : calls) {
+            keys.add(((QueryableStorageFunction) call.getLeft()).key(null));
+        }
+
+        Deferred<DerivedFees> first = this.first;
+        this.subscription = this.api.subscribeDiffs(calls, 0, diffs -> this.onChanges(specVersion, keys, diffs));
+        this.subscription._catch(err -> {
+            synchronized (this) {
+                // subscribed again on the next read
+                if (this.first == first) {
+                    this.specVersion = null;
+                    this.subscription = null;
+                }
+            }
+            first.reject(err);
+            return null;
+        });
+    }
+
+    private synchronized void onChanges(String specVersion, List<String> keys, List<StorageDiffSubscription.Diff> diffs) {
+        if (!specVersion.equals(this.specVersion)) {
+            return;
+        }
+        for (StorageDiffSubscription.Diff diff : diffs) {
+            String key = Utils.u8aToHex(diff.getKey().toU8a(true));
+            Object value = diff.getNewValue();
+            int index = keys.indexOf(key);
+            if (index >= 0) {
+                this.values[index] = value instanceof BigInteger ? (BigInteger) value : BigInteger.ZERO;
+            }
+        }
+
+        this.fees = new DerivedFees(this.value(0), this.value(1), this.value(2), this.value(3), this.value(4));
+        this.first.resolve(this.fees);
+    }
+
+    private BigInteger value(int index) {
+        return this.values[index] == null ? BigInteger.ZERO : this.values[index];
+    }
+}
@@ -9,14 +9,13 @@ import org.polkadot.types.type.AccountId;
 import org.polkadot.types.type.BlockNumber;
 import org.polkadot.types.type.Header;
 
-import java.math.BigInteger;
 import java.util.List;
 
 public class ChainFunctions {
 
 
     /**
-     * Get the latest block number.
+     * Get the latest block number, from the {@link HeaderChain} of the api (no request once the first head is received).
      * **example**  
      * 
      * ```java
@@ -32,22 +31,15 @@ public class ChainFunctions {
             @Override
             public Promise call(Object... args) {
 
-                return api.rpc().chain().function("subscribeNewHead").invoke()
-                        .then(result -> {
-                            Header header = (Header) result;
-                            if (header != null && header.getBlockNumber() != null) {
-                                return Promise.value(header.getBlockNumber());
-                            }
-                            //TODO 2019-05-25 00:25
-                            throw new UnsupportedOperationException();
-                        });
+                return api.getHeaderChain().best()
+                        .then(number -> Promise.value(new BlockNumber(number)));
             }
         };
     }
 
 
     /**
-     * Get the latest finalised block number.
+     * Get the latest finalised block number, from the {@link HeaderChain} of the api.
      * **example**  
      * 
      * ```java
@@ -62,22 +54,15 @@ public class ChainFunctions {
             // (): Observable<BlockNumber> =>
             @Override
             public Promise call(Object... args) {
-                return api.rpc().chain().function("subscribeFinalizedHeads").invoke()
-                        .then(result -> {
-                            Header header = (Header) result;
-                            if (header != null && header.getBlockNumber() != null) {
-                                return Promise.value(header.getBlockNumber());
-                            }
-                            //TODO 2019-05-25 00:25
-                            throw new UnsupportedOperationException();
-                        });
+                return api.getHeaderChain().finalized()
+                        .then(number -> Promise.value(new BlockNumber(number)));
             }
         };
     }
 
 
     /**
-     * Calculates the lag between finalised head and best head
+     * Calculates the lag between finalised head and best head, from the {@link HeaderChain} of the api
      * **example**  
      * 
      * ```java
@@ -91,16 +76,9 @@ public class ChainFunctions {
             //(): Observable<BlockNumber> =>
             @Override
             public Promise call(Object... args) {
-                return Promise.all(
-                        bestNumber(api).call(),
-                        bestNumberFinalized(api).call()
-                ).then(results -> {
-                    BlockNumber bestNumber = (BlockNumber) results.get(0);
-                    BlockNumber bestNumberFinalized = (BlockNumber) results.get(1);
-                    BigInteger subtract = bestNumber.subtract(bestNumberFinalized);
-                    BlockNumber ret = new BlockNumber(subtract);
-                    return Promise.value(ret);
-                });
+                HeaderChain chain = api.getHeaderChain();
+                return Promise.all(chain.best(), chain.finalized())
+                        .then(results -> Promise.value(new BlockNumber(chain.getLag())));
             }
         };
     }
@@ -0,0 +1,362 @@
+package org.polkadot.api.derive.chain;
+
+import com.onehilltech.promises.Promise;
+import org.polkadot.api.Types.ApiInterfacePromise;
+import org.polkadot.common.Deferred;
+import org.polkadot.direct.IRpcFunction;
+import org.polkadot.types.type.Header;
+import org.polkadot.utils.Utils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * The last headers of the best chain of an API, kept up to date by one new head and one finalized head
+ * subscription, shared by the chain derives: the best and finalized numbers, the lag and the hash of a recent
+ * block number are read from memory. The headers are kept in a ring buffer of primitive arrays (number, hash,
+ * parent hash), indexed by the block number.
+ * <p>
+ * A new head not built on the best head (a reorganisation, or heads missed) is linked to the chain by fetching
+ * its parents (chain_getHeader) up to a block of the chain. The blocks replaced are reported as a {@link Reorg}.
+ * A finalized head not in the chain is taken as the best chain up to it.
+ * <p>
+ * **Example**
+ * <p>
+ * ```java
+ * HeaderChain chain = api.getHeaderChain();
+ * chain.onReorg(reorg -> System.out.println("retracted " + reorg.getRetracted()));
+ * chain.best().then(number -> ...);
+ * ```
+ */
+public class HeaderChain {
+
+    private static final Logger logger = LoggerFactory.getLogger(HeaderChain.class);
+
+    public static final int DEFAULT_CAPACITY = 2048;
+    private static final int HASH_LENGTH = 32;
+
+    /**
+     * The replacement of blocks of the best chain by the blocks of a fork
+     */
+    public static class Reorg {
+        private final long commonNumber;
+        private final String commonHash;
+        private final List<String> retracted;
+        private final List<String> enacted;
+
+        Reorg(long commonNumber, String commonHash, List<String> retracted, List<String> enacted) {
+            this.commonNumber = commonNumber;
+            this.commonHash = commonHash;
+            this.retracted = retracted;
+            this.enacted = enacted;
+        }
+
+        /**
+         * The last block common to both chains
+         */
+        public long getCommonNumber() {
+            return commonNumber;
+        }
+
+        /**
+         * The hash (hex) of the last common block, null when before the headers kept
+         */
+        public String getCommonHash() {
+            return commonHash;
+        }
+
+        /**
+         * The blocks (hex) no longer in the best chain, in block order
+         */
+        public List<String> getRetracted() {
+            return retracted;
+        }
+
+        /**
+         * The blocks (hex) now in the best chain, in block order
+         */
+        public List<String> getEnacted() {
+            return enacted;
+        }
+    }
+
+    private final ApiInterfacePromise api;
+    private final int capacity;
+    private Promise newHeads;
+    private Promise finalizedHeads;
+
+    // by block number modulo the capacity, a slot holds the header of that number when numbers[slot] == number
+    private final long[] numbers;
+    private final byte[] hashes;
+    private final byte[] parentHashes;
+    private long best = -1;
+    private long finalized = -1;
+    private String finalizedHash;
+
+    private final List<Consumer<Reorg>> listeners = new CopyOnWriteArrayList<>();
+    // the heads are applied one after the other, the parents fetched for a head first
+    private Promise processing = Promise.value(null);
+    private final Deferred<Long> firstBest = new Deferred<>();
+    private final Deferred<Long> firstFinalized = new Deferred<>();
+
+    public HeaderChain(ApiInterfacePromise api, int capacity) {
+        assert capacity > 0 : "Expected a positive capacity, found " + capacity;
+
+        this.api = api;
+        this.capacity = capacity;
+        this.numbers = new long[capacity];
+        Arrays.fill(this.numbers, -1);
+        this.hashes = new byte[capacity * HASH_LENGTH];
+        this.parentHashes = new byte[capacity * HASH_LENGTH];
+    }
+
+    /**
+     * Subscribes to the new and the finalized heads
+     */
+    public synchronized HeaderChain follow() {
+        assert this.newHeads == null : "The heads are already followed";
+
+        IRpcFunction.SubscribeCallback<Header> onNewHead = header -> this.process(header, false);
+        IRpcFunction.SubscribeCallback<Header> onFinalizedHead = header -> this.process(header, true);
+        this.newHeads = this.api.rpc().chain().function("subscribeNewHead").invoke(onNewHead);
+        this.newHeads._catch(err -> {
+            logger.error("Unable to follow the new heads: {}", err.toString());
+            return null;
+        });
+        this.finalizedHeads = this.api.rpc().chain().function("subscribeFinalizedHeads").invoke(onFinalizedHead);
+        this.finalizedHeads._catch(err -> {
+            logger.error("Unable to follow the finalized heads: {}", err.toString());
+            return null;
+        });
+        return this;
+    }
+
+    /**
+     * Unsubscribes from the heads, the chain is no longer updated
+     */
+    public synchronized void stop() {
+        for (Promise heads : new Promise[]{this.newHeads, this.finalizedHeads}) {
+            if (heads != null) {
+                heads.then(unsubscribe -> ((IRpcFunction.Unsubscribe<Promise>) unsubscribe).unsubscribe());
+            }
+        }
+        this.newHeads = null;
+        this.finalizedHeads = null;
+    }
+
+    /**
+     * Reports the reorganisations of the best chain to the listener
+     */
+    public void onReorg(Consumer<Reorg> listener) {
+        this.listeners.add(listener);
+    }
+
+    /**
+     * The best block number, once known
+     */
+    public Promise<Long> best() {
+        return this.firstBest.promise().then(first -> Promise.value(this.getBestNumber()));
+    }
+
+    /**
+     * The finalized block number, once known
+     */
+    public Promise<Long> finalized() {
+        return this.firstFinalized.promise().then(first -> Promise.value(this.getFinalizedNumber()));
+    }
+
+    /**
+     * The best block number, -1 before the first head
+     */
+    public synchronized long getBestNumber() {
+        return this.best;
+    }
+
+    /**
+     * The best block hash (hex), null before the first head
+     */
+    public synchronized String getBestHash() {
+        return this.getHash(this.best);
+    }
+
+    /**
+     * The finalized block number, -1 before the first finalized head
+     */
+    public synchronized long getFinalizedNumber() {
+        return this.finalized;
+    }
+
+    public synchronized String getFinalizedHash() {
+        return this.finalizedHash;
+    }
+
+    /**
+     * The number of best blocks not finalized
+     */
+    public synchronized long getLag() {
+        return this.best < 0 || this.finalized < 0 ? 0 : Math.max(0, this.best - this.finalized);
+    }
+
+    /**
+     * The hash (hex) of the best chain block, null when not kept (not in the last blocks, or not received)
+     */
+    public synchronized String getHash(long number) {
+        int slot = this.slot(number);
+        return slot < 0 ? null : Utils.u8aToHex(Arrays.copyOfRange(this.hashes, slot * HASH_LENGTH, (slot + 1) * HASH_LENGTH));
+    }
+
+    /**
+     * The parent hash (hex) of the best chain block, null when not kept
+     */
+    public synchronized String getParentHash(long number) {
+        int slot = this.slot(number);
+        return slot < 0 ? null : Utils.u8aToHex(Arrays.copyOfRange(this.parentHashes, slot * HASH_LENGTH, (slot + 1) * HASH_LENGTH));
+    }
+
+    /**
+     * The slot of the block, -1 when not kept
+     */
+    private int slot(long number) {
+        if (number < 0 || number > this.best) {
+            return -1;
+        }
+        int slot = (int) (number % this.capacity);
+        return this.numbers[slot] == number ? slot : -1;
+    }
+
+    private boolean matches(long number, byte[] hash) {
+        int slot = this.slot(number);
+        return slot >= 0 && Arrays.equals(Arrays.copyOfRange(this.hashes, slot * HASH_LENGTH, (slot + 1) * HASH_LENGTH), hash);
+    }
+
+    private synchronized void process(Header header, boolean finalized) {
+        this.processing = this.processing
+                .then(previous -> this.apply(header, finalized))
+                ._catch(err -> {
+                    logger.error("Unable to apply head {}: {}", header.getBlockNumber(), err.toString());
+                    return Promise.value(null);
+                });
+    }
+
+    private Promise apply(Header header, boolean finalized) {
+        long number = header.getBlockNumber().longValue();
+        byte[] hash = header.getHash().toU8a();
+        boolean known;
+        synchronized (this) {
+            known = this.matches(number, hash) && (finalized || number == this.best);
+        }
+        Promise linked = known
+                ? Promise.value(null)
+                : this.link(new ArrayList<>(Collections.singletonList(header)));
+        return linked.then(result -> {
+            if (finalized) {
+                synchronized (this) {
+                    this.finalized = Math.max(this.finalized, number);
+                    this.finalizedHash = this.finalized == number ? Utils.u8aToHex(hash) : this.finalizedHash;
+                }
+                this.resolveFirst(true, number);
+            }
+            return Promise.value(null);
+        });
+    }
+
+    /**
+     * Fetches the parents of the branch (lowest block first) up to a block of the chain, then applies it
+     */
+    private Promise link(List<Header> branch) {
+        Header lowest = branch.get(0);
+        long number = lowest.getBlockNumber().longValue();
+        boolean linked;
+        synchronized (this) {
+            linked = number == 0
+                    || this.best < 0
+                    || this.matches(number - 1, lowest.getParentHash().toU8a())
+                    // the parent is before the blocks kept, or the branch fills them all
+                    || number - 1 <= this.best - this.capacity
+                    || branch.size() >= this.capacity;
+        }
+        if (linked) {
+            this.applyBranch(branch);
+            return Promise.value(null);
+        }
+        return this.api.rpc().chain().function("getHeader").invoke(lowest.getParentHash())
+                .then(parent -> {
+                    if (parent == null) {
+                        throw new RuntimeException("Unable to fetch header " + lowest.getParentHash());
+                    }
+                    branch.add(0, (Header) parent);
+                    return this.link(branch);
+                });
+    }
+
+    private void applyBranch(List<Header> branch) {
+        Reorg reorg;
+        long newBest;
+        synchronized (this) {
+            long first = branch.get(0).getBlockNumber().longValue();
+            long oldBest = this.best;
+
+            // the blocks of the chain from the first block of the branch are replaced, except the same ones
+            List<String> retracted = new ArrayList<>();
+            for (long number = first; number <= oldBest; number++) {
+                String hash = this.getHash(number);
+                if (hash != null) {
+                    retracted.add(hash);
+                }
+            }
+            List<String> enacted = new ArrayList<>();
+            for (Header header : branch) {
+                enacted.add(header.getHash().toHex());
+            }
+            int same = 0;
+            while (same < retracted.size() && same < enacted.size() && retracted.get(same).equals(enacted.get(same))) {
+                same++;
+            }
+            long commonNumber = first - 1 + same;
+            String commonHash = this.getHash(commonNumber);
+
+            for (long number = first; number <= oldBest; number++) {
+                int slot = this.slot(number);
+                if (slot >= 0) {
+                    this.numbers[slot] = -1;
+                }
+            }
+            for (Header header : branch) {
+                long number = header.getBlockNumber().longValue();
+                int slot = (int) (number % this.capacity);
+                this.numbers[slot] = number;
+                System.arraycopy(header.getHash().toU8a(), 0, this.hashes, slot * HASH_LENGTH, HASH_LENGTH);
+                System.arraycopy(header.getParentHash().toU8a(), 0, this.parentHashes, slot * HASH_LENGTH, HASH_LENGTH);
+            }
+            newBest = branch.get(branch.size() - 1).getBlockNumber().longValue();
+            this.best = newBest;
+
+            List<String> replaced = retracted.subList(same, retracted.size());
+            reorg = replaced.isEmpty()
+                    ? null
+                    : new Reorg(commonNumber, commonHash, new ArrayList<>(replaced), new ArrayList<>(enacted.subList(same, enacted.size())));
+        }
+
+        if (reorg != null) {
+            logger.info("Reorganisation after block {}, {} blocks retracted, {} enacted", reorg.getCommonNumber(), reorg.getRetracted().size(), reorg.getEnacted().size());
+            for (Consumer<Reorg> listener : this.listeners) {
+                try {
+                    listener.accept(reorg);
+                } catch (Exception e) {
+                    logger.error("Reorg listener failed: {}", e.toString());
+                }
+            }
+        }
+        this.resolveFirst(false, newBest);
+    }
+
+    private void resolveFirst(boolean finalized, long number) {
+        (finalized ? this.firstFinalized : this.firstBest).resolve(number);
+    }
+}
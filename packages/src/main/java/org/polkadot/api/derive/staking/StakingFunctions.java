@@ -1,12 +1,14 @@
 package org.polkadot.api.derive.staking;
 
 import com.onehilltech.promises.Promise;
+import org.apache.commons.lang3.tuple.Pair;
 import org.polkadot.api.ApiBase;
 import org.polkadot.api.Types.ApiInterfacePromise;
 import org.polkadot.api.derive.Types;
 import org.polkadot.api.derive.balances.BalancesFunctions;
 import org.polkadot.types.codec.CodecUtils;
 import org.polkadot.types.codec.Vector;
+import org.polkadot.types.primitive.StorageKey;
 import org.polkadot.types.type.AccountId;
 
 import java.util.List;
@@ -16,12 +18,12 @@ public class StakingFunctions {
 
 
     static Promise allBonds(ApiInterfacePromise api, List<AccountId> stashIds) {
-        List<Promise> collect = stashIds.stream().map(id -> {
-            //      (api.query.staking.bonded(id) as Observable<Option<AccountId>>)
-            return api.query().section("staking").function("bonded").call(id);
-        }).collect(Collectors.toList());
+        //      (api.query.staking.bonded(id) as Observable<Option<AccountId>>)
+        StorageKey.StorageFunction bonded = api.query().section("staking").function("bonded");
 
-        return Promise.all(collect.toArray(new Promise[0]));
+        return api.queryMulti(stashIds.stream()
+                .map(id -> Pair.<StorageKey.StorageFunction, Object>of(bonded, id))
+                .collect(Collectors.toList()));
     }
 
     /**
@@ -40,7 +42,7 @@ public class StakingFunctions {
 
                             return Promise.all(
                                     Promise.value(stashIds),
-                                    Promise.value(allBonds(api, stashIds))
+                                    allBonds(api, stashIds)
                             );
                         });
             }
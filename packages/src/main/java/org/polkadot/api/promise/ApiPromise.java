@@ -9,6 +9,7 @@ import org.polkadot.rpc.provider.IProvider;
 import org.polkadot.rpc.provider.ws.WsProvider;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * # @polkadot/api/promise
@@ -105,6 +106,14 @@ public class ApiPromise extends ApiBase<Promise> {
     }
 
 
+    /**
+     * Creates an ApiPromise instance with the supplied options (the provider is taken from the options)
+     */
+    public static Promise<ApiPromise> create(Types.ApiOptions options) {
+        ApiPromise apiPromise = new ApiPromise(options);
+        return apiPromise.isReadyPromise;
+    }
+
     public static Promise<ApiPromise> create() {
         ApiPromise apiPromise = new ApiPromise(new WsProvider());
         return apiPromise.isReadyPromise;
@@ -131,9 +140,27 @@ public class ApiPromise extends ApiBase<Promise> {
     ApiPromise(IProvider iProvider) {
         super(iProvider, ApiType.PROMISE);
 
-        this.isReadyPromise = new Promise<ApiPromise>((handler) -> {
-            ApiPromise.super.once(IProvider.ProviderInterfaceEmitted.ready,
-                    args -> handler.resolve(ApiPromise.this));
+        this.isReadyPromise = this.readyPromise();
+    }
+
+    ApiPromise(Types.ApiOptions options) {
+        super(options, ApiType.PROMISE);
+
+        this.isReadyPromise = this.readyPromise();
+    }
+
+    private Promise<ApiPromise> readyPromise() {
+        AtomicBoolean resolved = new AtomicBoolean(false);
+        return new Promise<ApiPromise>((handler) -> {
+            ApiPromise.super.once(IProvider.ProviderInterfaceEmitted.ready, args -> {
+                if (resolved.compareAndSet(false, true)) {
+                    handler.resolve(ApiPromise.this);
+                }
+            });
+            // with the metadata at hand (cached), ready can be emitted before the constructor returns
+            if (ApiPromise.super.isReady() && resolved.compareAndSet(false, true)) {
+                handler.resolve(ApiPromise.this);
+            }
         });
     }
 
@@ -0,0 +1,78 @@
+package org.polkadot.common;
+
+import com.onehilltech.promises.Promise;
+
+/**
+ * A promise settled from outside. The executor of a Promise runs later on the promise pool, so a resolve
+ * function captured from it may not be there yet when the value is known: a Deferred can be resolved (or
+ * rejected) as soon as it is created, the promise settles once its executor runs. The first settlement wins.
+ */
+public class Deferred<T> {
+
+    private final Promise<T> promise;
+
+    // guarded by this
+    private Promise.Settlement<T> settlement;
+    private boolean settled = false;
+    private T value;
+    private Throwable error;
+
+    public Deferred() {
+        this.promise = new Promise<>(settlement -> {
+            synchronized (this) {
+                if (!this.settled) {
+                    this.settlement = settlement;
+                    return;
+                }
+            }
+            settle(settlement, this.value, this.error);
+        });
+    }
+
+    public Promise<T> promise() {
+        return this.promise;
+    }
+
+    /**
+     * @return false when already settled
+     */
+    public boolean resolve(T value) {
+        return this.settle(value, null);
+    }
+
+    /**
+     * @return false when already settled
+     */
+    public boolean reject(Throwable error) {
+        return this.settle(null, error);
+    }
+
+    public synchronized boolean isSettled() {
+        return this.settled;
+    }
+
+    private boolean settle(T value, Throwable error) {
+        Promise.Settlement<T> settlement;
+        synchronized (this) {
+            if (this.settled) {
+                return false;
+            }
+            this.settled = true;
+            this.value = value;
+            this.error = error;
+            settlement = this.settlement;
+        }
+        if (settlement != null) {
+            settle(settlement, value, error);
+        }
+        return true;
+    }
+
+    private static <T> void settle(Promise.Settlement<T> settlement, T value, Throwable error) {
+        if (error != null) {
+            settlement.reject(error);
+        } else {
+            settlement.resolve(value);
+        }
+    }
+}
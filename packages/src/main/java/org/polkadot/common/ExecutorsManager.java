@@ -9,6 +9,8 @@ public class ExecutorsManager {
     private static final ExecutorService commonExecutor = Executors.newFixedThreadPool(CORE_COUNT + 1, new NamedThreadFactory("General-Executor"));
     private static final ScheduledExecutorService commonScheduleExecutor = Executors.newScheduledThreadPool(CORE_COUNT, new NamedThreadFactory("Schedule-Executor"));
     public static final ExecutorService battle = Executors.newFixedThreadPool(CORE_COUNT << 1, new NamedThreadFactory("Battle-Executor"));
+    // the keystore import/export wait for their tasks, kept off the general executor
+    public static final ExecutorService keystore = Executors.newFixedThreadPool(CORE_COUNT, new NamedThreadFactory("Keystore-Executor"));
 
     /**
      * Submit a task to the thread pool
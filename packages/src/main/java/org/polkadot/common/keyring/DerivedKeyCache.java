@@ -0,0 +1,190 @@
+package org.polkadot.common.keyring;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import org.polkadot.utils.Utils;
+import org.polkadot.utils.UtilsCrypto;
+import org.polkadot.utils.crypto.DeriveJunction;
+import org.polkadot.utils.crypto.Key;
+import org.polkadot.utils.crypto.Nacl;
+import org.polkadot.utils.crypto.Schnorrkel;
+import org.polkadot.utils.crypto.Types.Keypair;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.polkadot.utils.crypto.Types.KeypairType_SR;
+
+/**
+ * Bounded LRU cache of derived keys, keyed by (type, seed fingerprint, path).
+ * Every path prefix is cached, so children of the same parent only derive their last junction.
+ * The cache only ever hands out copies, and zeroes the secrets of the entries it evicts.
+ */
+public class DerivedKeyCache {
+
+    public static final long DEFAULT_SIZE = 1024;
+
+    /**
+     * A derived key, the seed for ed25519 (derivation works on seeds), the keypair for sr25519
+     */
+    static class Entry {
+        private byte[] seed;
+        private Keypair keypair;
+        private boolean zeroed = false;
+
+        Entry(byte[] seed, Keypair keypair) {
+            this.seed = seed;
+            this.keypair = keypair;
+        }
+
+        synchronized Entry copy() {
+            if (this.zeroed) {
+                return null;
+            }
+            return new Entry(
+                    this.seed == null ? null : this.seed.clone(),
+                    this.keypair == null ? null : new Keypair(this.keypair.getPublicKey().clone(), this.keypair.getSecretKey().clone()));
+        }
+
+        synchronized void zero() {
+            this.zeroed = true;
+            if (this.seed != null) {
+                Arrays.fill(this.seed, (byte) 0);
+            }
+            if (this.keypair != null) {
+                Arrays.fill(this.keypair.getSecretKey(), (byte) 0);
+            }
+        }
+    }
+
+    private final Cache<String, Entry> cache;
+
+    public DerivedKeyCache() {
+        this(DEFAULT_SIZE);
+    }
+
+    public DerivedKeyCache(long maximumSize) {
+        RemovalListener<String, Entry> onRemoval = notification -> notification.getValue().zero();
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .removalListener(onRemoval)
+                .build();
+    }
+
+    /**
+     * Returns (a copy of) the keypair at the end of the path
+     */
+    public Keypair derive(String type, byte[] seed, List<DeriveJunction> path) {
+        String base = baseKey(type, seed);
+        Entry entry = resolve(type, base, seed, path, path.size(), null);
+        try {
+            return keypair(type, base, path, entry);
+        } finally {
+            entry.zero();
+        }
+    }
+
+    /**
+     * Derives the keypairs of many paths from the same seed. The parents of all the paths are derived
+     * once (sharing common prefixes), then the leaves are derived in parallel. The result follows the order of paths.
+     */
+    public List<Keypair> deriveAll(String type, byte[] seed, List<List<DeriveJunction>> paths) {
+        String base = baseKey(type, seed);
+        Map<String, Entry> parents = new HashMap<>();
+        try {
+            for (List<DeriveJunction> path : paths) {
+                if (!path.isEmpty()) {
+                    resolve(type, base, seed, path, path.size() - 1, parents).zero();
+                }
+            }
+
+            return paths.parallelStream()
+                    .map(path -> {
+                        Entry entry = resolve(type, base, seed, path, path.size(), parents);
+                        try {
+                            return keypair(type, base, path, entry);
+                        } finally {
+                            entry.zero();
+                        }
+                    })
+                    .collect(Collectors.toList());
+        } finally {
+            parents.values().forEach(Entry::zero);
+        }
+    }
+
+    public long size() {
+        return this.cache.size();
+    }
+
+    public void clear() {
+        this.cache.invalidateAll();
+    }
+
+    private static String baseKey(String type, byte[] seed) {
+        return type + ":" + Utils.u8aToHex(UtilsCrypto.blake2AsU8a(seed, 256));
+    }
+
+    private static String pathKey(String base, List<DeriveJunction> path, int depth) {
+        StringBuilder key = new StringBuilder(base);
+        for (int i = 0; i < depth; i++) {
+            key.append(path.get(i));
+        }
+        return key.toString();
+    }
+
+    /**
+     * Returns a private copy (to be zeroed by the caller) of the entry at the given depth of the path.
+     * The shared map, when given, is checked first and, outside of the parallel stage, filled with the prefixes.
+     */
+    private Entry resolve(String type, String base, byte[] seed, List<DeriveJunction> path, int depth, Map<String, Entry> shared) {
+        String key = pathKey(base, path, depth);
+        boolean isLeaf = shared != null && depth == path.size();
+
+        if (shared != null) {
+            Entry entry = shared.get(key);
+            if (entry != null) {
+                return entry.copy();
+            }
+        }
+
+        Entry cached = this.cache.getIfPresent(key);
+        Entry entry = cached == null ? null : cached.copy();
+        if (entry == null) {
+            if (depth == 0) {
+                entry = KeypairType_SR.equals(type)
+                        ? new Entry(null, Schnorrkel.schnorrkelKeypairFromSeed(seed))
+                        : new Entry(seed.clone(), null);
+            } else {
+                Entry parent = resolve(type, base, seed, path, depth - 1, shared);
+                try {
+                    DeriveJunction junction = path.get(depth - 1);
+                    entry = KeypairType_SR.equals(type)
+                            ? new Entry(null, Key.keyHdkdSr25519(parent.keypair, junction))
+                            : new Entry(Key.keyHdkdEd25519(parent.seed, junction), null);
+                } finally {
+                    parent.zero();
+                }
+            }
+            this.cache.put(key, entry.copy());
+        }
+
+        if (shared != null && !isLeaf) {
+            shared.put(key, entry.copy());
+        }
+        return entry;
+    }
+
+    private Keypair keypair(String type, String base, List<DeriveJunction> path, Entry entry) {
+        if (entry.keypair == null) {
+            // ed25519, keep the expanded keypair along with the seed for the next lookups
+            entry.keypair = Nacl.naclKeypairFromSeed(entry.seed);
+            this.cache.put(pathKey(base, path, path.size()), entry.copy());
+        }
+        return new Keypair(entry.keypair.getPublicKey().clone(), entry.keypair.getSecretKey().clone());
+    }
+}
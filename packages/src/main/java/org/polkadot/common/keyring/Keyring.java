@@ -1,18 +1,23 @@
 package org.polkadot.common.keyring;
 
-import com.google.common.primitives.UnsignedBytes;
+import com.google.common.collect.Lists;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.lang3.tuple.Pair;
 import org.polkadot.common.keyring.address.AddressCodec;
 import org.polkadot.common.keyring.address.Defaults;
 import org.polkadot.common.keyring.pair.Index;
 import org.polkadot.common.keyring.pair.Types.PairInfo;
-import org.polkadot.example.TestingPairs;
 import org.polkadot.utils.Utils;
+import org.polkadot.utils.crypto.Key;
+import org.polkadot.utils.crypto.Mnemonic;
 import org.polkadot.utils.crypto.Nacl;
 import org.polkadot.utils.crypto.Schnorrkel;
+import org.polkadot.utils.crypto.Types.Keypair;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -31,8 +36,11 @@ import java.util.stream.Collectors;
  * an account may be obtained using `toJson` accompanied by the account passphrase.
  */
 public class Keyring implements Types.KeyringInstance {
+    private static final List<Integer> MNEMONIC_WORDS = Lists.newArrayList(12, 15, 18, 21, 24);
+
     private Pairs pairs;
     private String type;
+    private DerivedKeyCache derivedKeys;
 
     public Keyring(Types.KeyringOptions options) {
         if (options.type == null) {
@@ -43,6 +51,7 @@ public class Keyring implements Types.KeyringInstance {
 
         this.pairs = new Pairs();
         this.type = options.type;
+        this.derivedKeys = new DerivedKeyCache(options.derivedKeyCacheSize);
 
         Defaults.prefix = (byte) (Types.Prefix.contains(options.addressPrefix)
                 ? options.addressPrefix
@@ -126,6 +135,17 @@ public class Keyring implements Types.KeyringInstance {
      */
     @Override
     public Types.KeyringPair addFromJson(Types.KeyringPairJson pair, boolean ignoreChecksum) {
+        return this.addPair(
+                this.createFromJson(pair, ignoreChecksum)
+        );
+    }
+
+    /**
+     * Creates a Keypair from JSON data
+     * This creates a (locked) pair from the json, but does not add it to the keyring
+     */
+    @Override
+    public Types.KeyringPair createFromJson(Types.KeyringPairJson pair, boolean ignoreChecksum) {
         String version = pair.getEncoding().getVersion();
         String[] content = pair.getEncoding().getContent();
 
@@ -133,7 +153,22 @@ public class Keyring implements Types.KeyringInstance {
                 ? this.type
                 : content[1];
 
-        return this.addFromAddress(pair.getAddress(), pair.getMeta(), Utils.hexToU8a(pair.getEncoded()), type, ignoreChecksum);
+        byte[] publicKey = this.decodeAddress(pair.getAddress(), ignoreChecksum);
+        Types.KeyringPairMeta meta = pair.getMeta() == null ? new Types.KeyringPairMeta() : pair.getMeta();
+        PairInfo pairInfo = new PairInfo();
+        pairInfo.setPublicKey(publicKey);
+        return Index.createPair(type, pairInfo, meta, Utils.hexToU8a(pair.getEncoded()));
+    }
+
+    /**
+     * Stores a list of accounts, given their JSON data, in the Keyring Pair Dictionary
+     * The entries are decoded in parallel, the returned list keeps the order of the input.
+     */
+    @Override
+    public List<Types.KeyringPair> addFromJson(List<Types.KeyringPairJson> pairs, boolean ignoreChecksum) {
+        return pairs.parallelStream()
+                .map(pair -> this.addFromJson(pair, ignoreChecksum))
+                .collect(Collectors.toList());
     }
 
 
@@ -181,20 +216,105 @@ public class Keyring implements Types.KeyringInstance {
         );
     }
 
+    /**
+     * Stores a list of accounts, given their suri, in the Keyring Pair Dictionary
+     * The pairs are derived in parallel (see `createFromUri`), each one receiving its own copy of the metadata.
+     */
+    @Override
+    public List<Types.KeyringPair> addFromUri(List<String> suris, Types.KeyringPairMeta meta, String type) {
+        return this.createFromUri(suris, meta, type).stream()
+                .map(this::addPair)
+                .collect(Collectors.toList());
+    }
+
     /**
      * Creates a Keypair from an suri
      * This creates a pair from the suri, but does not add it to the keyring
+     * A suri starting with `//` is derived from the substrate dev phrase. Derived keys are kept in a bounded cache,
+     * so deriving the same path (or a sibling of it) again does not repeat the parent derivations.
      */
     @Override
     public Types.KeyringPair createFromUri(String _suri, Types.KeyringPairMeta meta, String type) {
-        //TODO only for api test
-        Pair<byte[], byte[]> keys = TestingPairs.getKeys(_suri.replace("//", ""));
+        type = StringUtils.isBlank(type) ? this.type : type;
 
+        Key.ExtractResult extracted = Key.keyExtractSuri(expandSuri(_suri));
+        byte[] seed = seedFromPhrase(extracted.getPhrase(), extracted.getPassword());
+        try {
+            return createPair(type, this.derivedKeys.derive(type, seed, extracted.getPath()), meta);
+        } finally {
+            Arrays.fill(seed, (byte) 0);
+        }
+    }
+
+    /**
+     * Creates Keypairs from a list of suri, without adding them to the keyring
+     * The suri sharing the same phrase and password are derived together, their common path prefixes only once.
+     */
+    @Override
+    public List<Types.KeyringPair> createFromUri(List<String> suris, Types.KeyringPairMeta meta, String type) {
+        String keyType = StringUtils.isBlank(type) ? this.type : type;
+
+        Map<String, List<Integer>> groups = new LinkedHashMap<>();
+        List<Key.ExtractResult> extracted = new ArrayList<>(suris.size());
+        for (int i = 0; i < suris.size(); i++) {
+            Key.ExtractResult result = Key.keyExtractSuri(expandSuri(suris.get(i)));
+            extracted.add(result);
+            groups.computeIfAbsent(result.getPhrase() + "///" + result.getPassword(), k -> new ArrayList<>()).add(i);
+        }
+
+        Types.KeyringPair[] pairs = new Types.KeyringPair[suris.size()];
+        for (List<Integer> indexes : groups.values()) {
+            Key.ExtractResult first = extracted.get(indexes.get(0));
+            byte[] seed = seedFromPhrase(first.getPhrase(), first.getPassword());
+            try {
+                List<Keypair> keypairs = this.derivedKeys.deriveAll(keyType, seed, indexes.stream()
+                        .map(index -> extracted.get(index).getPath())
+                        .collect(Collectors.toList()));
+
+                for (int i = 0; i < indexes.size(); i++) {
+                    Types.KeyringPairMeta pairMeta = new Types.KeyringPairMeta();
+                    if (meta != null) {
+                        pairMeta.putAll(meta);
+                    }
+                    pairs[indexes.get(i)] = createPair(keyType, keypairs.get(i), pairMeta);
+                }
+            } finally {
+                Arrays.fill(seed, (byte) 0);
+            }
+        }
+        return Arrays.asList(pairs);
+    }
+
+    private static String expandSuri(String suri) {
+        return suri.startsWith("//")
+                ? org.polkadot.common.keyring.Defaults.DEV_PHRASE + suri
+                : suri;
+    }
+
+    /**
+     * The secret of a suri is either a hex seed, a mnemonic phrase or a string (padded to 32 bytes)
+     */
+    private static byte[] seedFromPhrase(String phrase, String password) {
+        if (Utils.isHex(phrase, 256, false)) {
+            return Utils.hexToU8a(phrase);
+        }
+
+        String[] words = phrase.split(" ");
+        if (MNEMONIC_WORDS.contains(words.length)) {
+            return Mnemonic.mnemonicToMiniSecret(phrase, password);
+        }
+
+        if (phrase.length() > 32) {
+            throw new RuntimeException("specified phrase is not a valid mnemonic and is invalid as a raw seed at > 32 bytes");
+        }
+        return Utils.stringToU8a(StringUtils.rightPad(phrase, 32));
+    }
+
+    private static Types.KeyringPair createPair(String type, Keypair keypair, Types.KeyringPairMeta meta) {
         PairInfo pairInfo = new PairInfo();
-        pairInfo.setPublicKey(keys.getLeft());
-        pairInfo.setSecretKey(keys.getRight());
-        Types.KeyringPair pair = Index.createPair(type, pairInfo, meta, null);
-        return pair;
+        pairInfo.setPublicKey(keypair.getPublicKey());
+        pairInfo.setSecretKey(keypair.getSecretKey());
+        return Index.createPair(type, pairInfo, meta == null ? new Types.KeyringPairMeta() : meta, null);
     }
 
 
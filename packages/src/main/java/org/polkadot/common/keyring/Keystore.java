@@ -0,0 +1,165 @@
+package org.polkadot.common.keyring;
+
+import com.alibaba.fastjson.JSONReader;
+import com.alibaba.fastjson.JSONWriter;
+import org.polkadot.common.ExecutorsManager;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Bulk import/export of keyring pairs as a JSON array of `KeyringPairJson` entries (a keystore).
+ * Entries are streamed from/to the underlying stream, while the pkcs8 decryption (and seed
+ * derivation) or encryption runs in parallel on the keystore executor (the caller waits for the entries, so
+ * they are kept off the general executor). At most `window` entries
+ * are in flight at any time, so the memory used does not depend on the size of the keystore.
+ */
+public class Keystore {
+
+    public static final int DEFAULT_WINDOW = Runtime.getRuntime().availableProcessors() * 4;
+
+    private static final String ENCODING_ENCRYPTED = "xsalsa20-poly1305";
+
+    private final Types.KeyringInstance keyring;
+    private final int window;
+
+    public Keystore(Types.KeyringInstance keyring) {
+        this(keyring, DEFAULT_WINDOW);
+    }
+
+    public Keystore(Types.KeyringInstance keyring, int window) {
+        assert window > 0 : "Expected a positive window, found " + window;
+        this.keyring = keyring;
+        this.window = window;
+    }
+
+    public int importFrom(File file, String passphrase, boolean ignoreChecksum) {
+        try (InputStream input = new BufferedInputStream(new FileInputStream(file))) {
+            return importFrom(input, passphrase, ignoreChecksum, null);
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to read keystore " + file, e);
+        }
+    }
+
+    /**
+     * Reads all the entries of the keystore and adds them to the keyring as they are decoded.
+     * Encrypted entries are unlocked with the passphrase (when not null), the others are added as-is.
+     * The optional consumer is called (from the worker threads) for every pair added.
+     *
+     * @return the number of pairs added
+     */
+    public int importFrom(InputStream input, String passphrase, boolean ignoreChecksum, Consumer<Types.KeyringPair> onPair) {
+        Semaphore inFlight = new Semaphore(this.window);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        AtomicInteger count = new AtomicInteger();
+
+        JSONReader reader = new JSONReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        try {
+            reader.startArray();
+            while (reader.hasNext() && failure.get() == null) {
+                Types.KeyringPairJson json = reader.readObject(Types.KeyringPairJson.class);
+
+                inFlight.acquire();
+                ExecutorsManager.keystore.execute(() -> {
+                    try {
+                        Types.KeyringPair pair = this.keyring.createFromJson(json, ignoreChecksum);
+                        if (passphrase != null && ENCODING_ENCRYPTED.equals(json.getEncoding().getType())) {
+                            pair.decodePkcs8(passphrase, null);
+                        }
+                        this.keyring.addPair(pair);
+                        count.incrementAndGet();
+                        if (onPair != null) {
+                            onPair.accept(pair);
+                        }
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+            if (failure.get() == null) {
+                reader.endArray();
+            }
+
+            // wait for the entries still being decoded
+            inFlight.acquire(this.window);
+            inFlight.release(this.window);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while importing keystore", e);
+        } finally {
+            reader.close();
+        }
+
+        if (failure.get() != null) {
+            throw new RuntimeException("Unable to import keystore entry", failure.get());
+        }
+        return count.get();
+    }
+
+    public int exportTo(File file, String passphrase) {
+        try (OutputStream output = new BufferedOutputStream(new FileOutputStream(file))) {
+            return exportTo(this.keyring.getPairs(), output, passphrase);
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to write keystore " + file, e);
+        }
+    }
+
+    /**
+     * Writes the pairs, encrypted with the passphrase (when not null), as a JSON array.
+     * The entries are encoded in parallel and written in the order of the list.
+     *
+     * @return the number of pairs written
+     */
+    public int exportTo(List<Types.KeyringPair> pairs, OutputStream output, String passphrase) {
+        Deque<Future<Types.KeyringPairJson>> pending = new ArrayDeque<>(this.window);
+        int count = 0;
+
+        JSONWriter writer = new JSONWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        try {
+            writer.startArray();
+            for (Types.KeyringPair pair : pairs) {
+                if (pending.size() >= this.window) {
+                    writer.writeObject(pending.poll().get());
+                    count++;
+                }
+                pending.add(ExecutorsManager.keystore.submit(() -> pair.toJson(passphrase)));
+            }
+            while (!pending.isEmpty()) {
+                writer.writeObject(pending.poll().get());
+                count++;
+            }
+            writer.endArray();
+            writer.flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while exporting keystore", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Unable to export keystore entry", e.getCause());
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to write keystore", e);
+        } finally {
+            pending.forEach(future -> future.cancel(false));
+        }
+        return count;
+    }
+}
@@ -1,30 +1,75 @@
 package org.polkadot.common.keyring;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Lists;
 import org.polkadot.common.keyring.address.AddressCodec;
 import org.polkadot.utils.Utils;
 
 import java.util.Arrays;
-import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class Pairs implements Types.KeyringPairs {
 
-    //TODO 2019-05-23 11:26 byte[] to string
-//public static class KeyringPairMap extends LinkedHashMap<byte[], Types.KeyringPair> {
-    public static class KeyringPairMap extends LinkedHashMap<String, Types.KeyringPair> {
+    public static final long DEFAULT_ADDRESS_CACHE_SIZE = 10_000;
+
+    /**
+     * Compact map key wrapping the raw public key bytes, hashed once on creation
+     */
+    public static final class PairKey {
+        private final byte[] key;
+        private final int hash;
+
+        public PairKey(byte[] key) {
+            this.key = key;
+            this.hash = Arrays.hashCode(key);
+        }
+
+        public byte[] getKey() {
+            return key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof PairKey)) {
+                return false;
+            }
+            PairKey other = (PairKey) o;
+            return this.hash == other.hash && Arrays.equals(this.key, other.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    public static class KeyringPairMap extends ConcurrentHashMap<PairKey, Types.KeyringPair> {
     }
 
     private KeyringPairMap map;
 
+    // address string -> decoded public key, so repeated lookups skip the ss58 decoding
+    private Cache<String, PairKey> addressCache;
+
     public Pairs() {
+        this(DEFAULT_ADDRESS_CACHE_SIZE);
+    }
+
+    public Pairs(long addressCacheSize) {
         map = new KeyringPairMap();
+        addressCache = CacheBuilder.newBuilder()
+                .maximumSize(addressCacheSize)
+                .build();
     }
 
     @Override
     public Types.KeyringPair add(Types.KeyringPair pair) {
-        // @ts-ignore we use coercion :(
-        this.map.put(Arrays.toString(pair.publicKey()), pair);
+        this.map.put(new PairKey(pair.publicKey()), pair);
         return pair;
     }
 
@@ -35,9 +80,7 @@ public class Pairs implements Types.KeyringPairs {
 
     @Override
     public Types.KeyringPair get(String address) {
-        // @ts-ignore we use coercion :(
-        byte[] key = AddressCodec.decodeAddress(address);
-        Types.KeyringPair pair = this.map.get(Arrays.toString(key));
+        Types.KeyringPair pair = this.map.get(toKey(address));
 
         if (pair == null) {
             String formatted = Utils.isU8a(address) || Utils.isHex(address)
@@ -51,7 +94,19 @@ public class Pairs implements Types.KeyringPairs {
 
     @Override
     public void remove(String address) {
-        byte[] decodeAddress = AddressCodec.decodeAddress(address);
-        this.map.remove(Arrays.toString(decodeAddress));
+        this.map.remove(toKey(address));
+    }
+
+    public int size() {
+        return this.map.size();
+    }
+
+    private PairKey toKey(String address) {
+        PairKey key = this.addressCache.getIfPresent(address);
+        if (key == null) {
+            key = new PairKey(AddressCodec.decodeAddress(address));
+            this.addressCache.put(address, key);
+        }
+        return key;
     }
 }
@@ -6,12 +6,14 @@ import com.google.common.collect.Sets;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 public interface Types {
 
     class KeyringOptions {
         int addressPrefix = -1;
         String type;
+        long derivedKeyCacheSize = DerivedKeyCache.DEFAULT_SIZE;
 
         public KeyringOptions(String type) {
             this.type = type;
@@ -24,6 +26,14 @@ public interface Types {
         public String getType() {
             return type;
         }
+
+        public long getDerivedKeyCacheSize() {
+            return derivedKeyCacheSize;
+        }
+
+        public void setDerivedKeyCacheSize(long derivedKeyCacheSize) {
+            this.derivedKeyCacheSize = derivedKeyCacheSize;
+        }
     }
 
 
@@ -148,6 +158,13 @@ public interface Types {
 
         byte[] sign(byte[] message);
 
+        /**
+         * Signs the messages (in parallel), the signatures in the order of the messages
+         */
+        default List<byte[]> signAll(List<byte[]> messages) {
+            return messages.parallelStream().map(this::sign).collect(Collectors.toList());
+        }
+
         KeyringPairJson toJson(String passphrase);
 
         boolean verify(byte[] message, byte[] signature);
@@ -184,14 +201,22 @@ public interface Types {
 
         KeyringPair addFromJson(KeyringPairJson pair, boolean ignoreChecksum);
 
+        List<KeyringPair> addFromJson(List<KeyringPairJson> pairs, boolean ignoreChecksum);
+
+        KeyringPair createFromJson(KeyringPairJson pair, boolean ignoreChecksum);
+
         KeyringPair addFromMnemonic(String mnemonic, KeyringPairMeta meta, String type);
 
         KeyringPair addFromSeed(byte[] seed, KeyringPairMeta meta, String type);
 
         KeyringPair addFromUri(String suri, KeyringPairMeta meta, String type);
 
+        List<KeyringPair> addFromUri(List<String> suris, KeyringPairMeta meta, String type);
+
         KeyringPair createFromUri(String suri, KeyringPairMeta meta, String type);
 
+        List<KeyringPair> createFromUri(List<String> suris, KeyringPairMeta meta, String type);
+
         KeyringPair getPair(String address);
 
         void removePair(String address);
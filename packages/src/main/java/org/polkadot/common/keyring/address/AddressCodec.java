@@ -3,9 +3,10 @@ package org.polkadot.common.keyring.address;
 import com.google.common.collect.Lists;
 import org.apache.commons.lang3.ArrayUtils;
 import org.bitcoinj.core.Base58;
-import org.polkadot.utils.UtilsCrypto;
 import org.polkadot.utils.Utils;
 
+import java.util.Arrays;
+
 public class AddressCodec {
 
     //export default function decode (encoded: string | Uint8Array, ignoreChecksum?: boolean, prefix: Prefix = defaults.prefix): Uint8Array {
@@ -26,7 +27,11 @@ public class AddressCodec {
             return Utils.u8aToU8a(encoded);
         }
 
-        byte[] decoded = Base58.decode((String) encoded);
+        // public key addresses (the common case) go through the fixed-length decoder
+        byte[] decoded = Ss58Codec.decodeBase58((String) encoded);
+        if (decoded == null) {
+            decoded = Base58.decode((String) encoded);
+        }
         String errorPre = "Decoding " + encoded + ":";
 
         // assert(defaults.allowedPrefix.includes(decoded[0] as Prefix), error('Invalid decoded address prefix'));
@@ -44,21 +49,18 @@ public class AddressCodec {
         int endPos = decoded.length - (isPublicKey ? 2 : 1);
 
         // calculate the hash and do the checksum byte checks
-        byte[] hash = sshash(ArrayUtils.subarray(decoded, 0, endPos));
-        boolean checks = isPublicKey
-                ? decoded[decoded.length - 2] == hash[0] && decoded[decoded.length - 1] == hash[1]
-                : decoded[decoded.length - 1] == hash[0];
-
-        assert ignoreChecksum || checks : errorPre + "Invalid decoded address checksum";
+        assert ignoreChecksum || Ss58Codec.verifyChecksum(decoded, endPos) : errorPre + "Invalid decoded address checksum";
 
-        return ArrayUtils.subarray(decoded, 1, endPos);
+        return Arrays.copyOfRange(decoded, 1, endPos);
     }
 
 
     final static byte[] SS58_PREFIX = Utils.stringToU8a("SS58PRE");
 
     public static byte[] sshash(byte[] key) {
-        return UtilsCrypto.blake2AsU8a(Utils.u8aConcat(Lists.newArrayList(SS58_PREFIX, key)), 512);
+        byte[] hash = new byte[64];
+        Ss58Codec.sshash(key, 0, key.length, hash);
+        return hash;
     }
 
 
@@ -76,10 +78,14 @@ public class AddressCodec {
 
         boolean isPublicKey = key.length == 32;
 
+        if (isPublicKey) {
+            return Ss58Codec.encode(key, prefix);
+        }
+
         byte[] input = Utils.u8aConcat(Lists.newArrayList(new byte[]{prefix}, key));
         byte[] hash = sshash(input);
 
-        byte[] bytes = Utils.u8aConcat(Lists.newArrayList(input, ArrayUtils.subarray(hash, 0, isPublicKey ? 2 : 1)));
+        byte[] bytes = Utils.u8aConcat(Lists.newArrayList(input, ArrayUtils.subarray(hash, 0, 1)));
 
         String result = Base58.encode(bytes);
         //System.out.println(result);
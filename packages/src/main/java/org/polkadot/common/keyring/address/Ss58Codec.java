@@ -0,0 +1,207 @@
+package org.polkadot.common.keyring.address;
+
+import org.bouncycastle.crypto.digests.Blake2bDigest;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-length SS58 codec for public key addresses, `[ <prefix>, ...publicKey(32), ...checksum(2) ]`
+ * (35 bytes once decoded).
+ * Instead of the generic per-digit Base58 loops, the 35 bytes are held in 9 limbs of 32 bits and
+ * converted 5 base-58 digits (58^5 < 2^30) at a time. The SS58 checksum uses a per-thread blake2b
+ * digest so no intermediate concatenations are allocated.
+ */
+public class Ss58Codec {
+
+    public static final int DECODED_LENGTH = 35;
+    public static final int KEY_LENGTH = 32;
+    public static final int CHECKSUM_LENGTH = 2;
+
+    private static final char[] ALPHABET = "123456789ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnopqrstuvwxyz".toCharArray();
+    private static final int[] INDEXES = new int[128];
+
+    static {
+        Arrays.fill(INDEXES, -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            INDEXES[ALPHABET[i]] = i;
+        }
+    }
+
+    private static final char ENCODED_ZERO = ALPHABET[0];
+    private static final long BASE_5 = 58L * 58 * 58 * 58 * 58;
+    private static final long[] POW_58 = new long[]{1L, 58L, 58L * 58, 58L * 58 * 58, 58L * 58 * 58 * 58, BASE_5};
+    private static final int LIMBS = 9;
+    // 35 bytes are at most 48 base-58 digits, emitted in groups of 5
+    private static final int MAX_DIGITS = 48;
+
+    private static final byte[] SS58_PREFIX = AddressCodec.SS58_PREFIX;
+
+    private static final ThreadLocal<Blake2bDigest> DIGEST = ThreadLocal.withInitial(() -> new Blake2bDigest(512));
+    private static final ThreadLocal<byte[]> HASH = ThreadLocal.withInitial(() -> new byte[64]);
+
+    /**
+     * Hashes `SS58PRE` + data[offset, offset + length) into the supplied 64-byte output
+     */
+    public static void sshash(byte[] data, int offset, int length, byte[] out) {
+        Blake2bDigest digest = DIGEST.get();
+        digest.reset();
+        digest.update(SS58_PREFIX, 0, SS58_PREFIX.length);
+        digest.update(data, offset, length);
+        digest.doFinal(out, 0);
+    }
+
+    /**
+     * Checks the trailing checksum bytes of a decoded address, with the payload being decoded[0, endPos)
+     */
+    public static boolean verifyChecksum(byte[] decoded, int endPos) {
+        byte[] hash = HASH.get();
+        sshash(decoded, 0, endPos, hash);
+
+        for (int i = endPos; i < decoded.length; i++) {
+            if (decoded[i] != hash[i - endPos]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Encodes a 32-byte public key with the given prefix
+     */
+    public static String encode(byte[] key, byte prefix) {
+        assert key.length == KEY_LENGTH : "Expected a 32 byte public key, found " + key.length;
+
+        byte[] bytes = new byte[DECODED_LENGTH];
+        bytes[0] = prefix;
+        System.arraycopy(key, 0, bytes, 1, KEY_LENGTH);
+
+        byte[] hash = HASH.get();
+        sshash(bytes, 0, KEY_LENGTH + 1, hash);
+        bytes[KEY_LENGTH + 1] = hash[0];
+        bytes[KEY_LENGTH + 2] = hash[1];
+
+        return encodeBase58(bytes);
+    }
+
+    /**
+     * Base-58 encodes exactly 35 bytes
+     */
+    static String encodeBase58(byte[] bytes) {
+        int zeros = 0;
+        while (zeros < DECODED_LENGTH && bytes[zeros] == 0) {
+            ++zeros;
+        }
+
+        // limb 0 holds the 3 most significant bytes, the other 8 limbs 4 bytes each
+        long[] limbs = new long[LIMBS];
+        limbs[0] = ((bytes[0] & 0xffL) << 16) | ((bytes[1] & 0xffL) << 8) | (bytes[2] & 0xffL);
+        for (int i = 1, off = 3; i < LIMBS; i++, off += 4) {
+            limbs[i] = ((bytes[off] & 0xffL) << 24)
+                    | ((bytes[off + 1] & 0xffL) << 16)
+                    | ((bytes[off + 2] & 0xffL) << 8)
+                    | (bytes[off + 3] & 0xffL);
+        }
+
+        char[] out = new char[MAX_DIGITS + 2 + DECODED_LENGTH];
+        int pos = out.length;
+        int start = 0;
+        while (start < LIMBS && limbs[start] == 0) {
+            ++start;
+        }
+
+        while (start < LIMBS) {
+            long rem = 0;
+            for (int i = start; i < LIMBS; i++) {
+                long cur = (rem << 32) | limbs[i];
+                limbs[i] = cur / BASE_5;
+                rem = cur % BASE_5;
+            }
+            while (start < LIMBS && limbs[start] == 0) {
+                ++start;
+            }
+
+            int digits = (int) rem;
+            out[--pos] = ALPHABET[digits % 58];
+            digits /= 58;
+            out[--pos] = ALPHABET[digits % 58];
+            digits /= 58;
+            out[--pos] = ALPHABET[digits % 58];
+            digits /= 58;
+            out[--pos] = ALPHABET[digits % 58];
+            digits /= 58;
+            out[--pos] = ALPHABET[digits];
+        }
+
+        // drop the zero padding of the last group, then add one leading zero per zero byte
+        while (pos < out.length && out[pos] == ENCODED_ZERO) {
+            ++pos;
+        }
+        while (--zeros >= 0) {
+            out[--pos] = ENCODED_ZERO;
+        }
+
+        return new String(out, pos, out.length - pos);
+    }
+
+    /**
+     * Base-58 decodes the input when it represents exactly 35 bytes, returns null when it does not
+     * (other lengths or invalid characters), so the caller can use the generic decoder instead
+     */
+    public static byte[] decodeBase58(String input) {
+        int length = input.length();
+        int zeros = 0;
+        while (zeros < length && input.charAt(zeros) == ENCODED_ZERO) {
+            ++zeros;
+        }
+        if (zeros > DECODED_LENGTH || length - zeros > MAX_DIGITS) {
+            return null;
+        }
+
+        long[] limbs = new long[LIMBS];
+        for (int i = zeros; i < length; ) {
+            int count = Math.min(5, length - i);
+            long chunk = 0;
+            for (int end = i + count; i < end; i++) {
+                char c = input.charAt(i);
+                int digit = c < 128 ? INDEXES[c] : -1;
+                if (digit < 0) {
+                    return null;
+                }
+                chunk = chunk * 58 + digit;
+            }
+
+            long mul = POW_58[count];
+            long carry = chunk;
+            for (int j = LIMBS - 1; j >= 0; j--) {
+                long cur = limbs[j] * mul + carry;
+                limbs[j] = cur & 0xffffffffL;
+                carry = cur >>> 32;
+            }
+            if (carry != 0) {
+                return null;
+            }
+        }
+
+        byte[] raw = new byte[LIMBS * 4];
+        for (int i = 0, off = 0; i < LIMBS; i++, off += 4) {
+            long limb = limbs[i];
+            raw[off] = (byte) (limb >>> 24);
+            raw[off + 1] = (byte) (limb >>> 16);
+            raw[off + 2] = (byte) (limb >>> 8);
+            raw[off + 3] = (byte) limb;
+        }
+
+        int first = 0;
+        while (first < raw.length && raw[first] == 0) {
+            ++first;
+        }
+        int significant = raw.length - first;
+        if (zeros + significant != DECODED_LENGTH) {
+            return null;
+        }
+
+        byte[] decoded = new byte[DECODED_LENGTH];
+        System.arraycopy(raw, first, decoded, zeros, significant);
+        return decoded;
+    }
+}
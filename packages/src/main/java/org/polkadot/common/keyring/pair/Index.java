@@ -8,6 +8,9 @@ import org.polkadot.utils.crypto.Nacl;
 import org.polkadot.utils.crypto.Schnorrkel;
 import org.polkadot.utils.crypto.Types.Keypair;
 
+import java.util.List;
+import java.util.stream.Collectors;
+
 public interface Index {
 
     static boolean isSr25519(String type) {
@@ -141,6 +144,14 @@ public interface Index {
             return Index.sign(this.type, message, new Keypair(this.pairInfo.publicKey, this.pairInfo.secretKey));
         }
 
+        @Override
+        public List<byte[]> signAll(List<byte[]> messages) {
+            Keypair keypair = new Keypair(this.pairInfo.publicKey, this.pairInfo.secretKey);
+            return messages.parallelStream()
+                    .map(message -> Index.sign(this.type, message, keypair))
+                    .collect(Collectors.toList());
+        }
+
         @Override
         public Types.KeyringPairJson toJson(String passphrase) {
             return PairCodec.toJson(this.type,
@@ -88,7 +88,7 @@ public class TestingPairs {
 
             Types.KeyringPair pair = null;
             if (!isDerived) {
-                pair = keyring.addFromUri(entry, meta, options.getType());
+                pair = keyring.addFromUri("//" + entry, meta, options.getType());
             } else {
                 PairInfo pairInfo = new PairInfo();
                 pairInfo.setPublicKey(PAIRS[index][1]);
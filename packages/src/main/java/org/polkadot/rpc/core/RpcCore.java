@@ -17,18 +17,23 @@ import org.polkadot.rpc.provider.IProvider;
 import org.polkadot.rpc.provider.ws.WsProvider;
 import org.polkadot.types.Codec;
 import org.polkadot.types.Types;
+import org.polkadot.types.TypesUtils;
 import org.polkadot.types.codec.CreateType;
 import org.polkadot.types.codec.Option;
 import org.polkadot.types.codec.Vector;
 import org.polkadot.types.metadata.v0.Modules;
+import org.polkadot.types.primitive.StorageData;
 import org.polkadot.types.primitive.StorageKey;
 import org.polkadot.types.rpc.StorageChangeSet;
 import org.polkadot.types.type.KeyValue;
+import org.polkadot.utils.Utils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicReference;
@@ -37,6 +42,17 @@ import java.util.stream.Collectors;
 public class RpcCore implements IRpcModule {
     private static final Logger logger = LoggerFactory.getLogger(RpcCore.class);
 
+    private static final String SECTION_AUTHOR = "author";
+
+    /**
+     * The callback of a StorageChangeSet subscription (state.subscribeStorage) handed over the raw changes of
+     * the subscribed keys instead of the decoded values: the index of every key in the change set (in the
+     * subscribed keys), with its raw value (hex), null when empty. The callback is not called for the change
+     * sets without subscribed key.
+     */
+    public interface StorageChangesCallback extends IRpcFunction.SubscribeCallback<Map<Integer, String>> {
+    }
+
 
     IProvider provider;
     RpcInterfaceSection author;
@@ -122,6 +138,10 @@ public class RpcCore implements IRpcModule {
                                 Object output = RpcCore.this.formatOutput(jsonRpcMethod, params, result);
                                 return Promise.value(output);
                             })._catch((err) -> {
+                                // the submissions are rejected with the reason given by the node (e.g. a stale nonce)
+                                if (SECTION_AUTHOR.equals(jsonRpcMethod.getSection())) {
+                                    return Promise.reject(err);
+                                }
                                 err.printStackTrace();
                                 return null;
                             });
@@ -155,22 +175,24 @@ public class RpcCore implements IRpcModule {
     }
 
     private Object formatOutput(JsonRpcMethod jsonRpcMethod, List<Codec> params, Object result) {
-        if (result instanceof String) {
-            String json = ((String) result).trim();
+        return this.formatOutput(jsonRpcMethod, params, null, result);
+    }
 
-            if (json.startsWith("{")) {
-                try {
-                    JSONObject jsonObject = JSON.parseObject((String) result);
-                    result = jsonObject;
-                } catch (Exception e) {
-                }
-            } else if (json.startsWith("[")) {
-                try {
-                    JSONArray jsonArray = JSON.parseArray((String) result);
-                    result = jsonArray;
-                } catch (Exception e) {
-                }
-            }
+    /**
+     * @param keyIndex the index of the storage keys of a StorageChangeSet subscription, created on the fly when null
+     */
+    private Object formatOutput(JsonRpcMethod jsonRpcMethod, List<Codec> params, StorageKeyIndex keyIndex, Object result) {
+        result = parseJson(result);
+
+        if (jsonRpcMethod.getType().equals("StorageChangeSet")) {
+            // multiple return values (via state.storage subscription), decode the values
+            // one at a time, all based on the query types. Three values can be returned -
+            //   - Base - There is a valid value, non-empty
+            //   - null - The storage key is empty (but in the resultset)
+            //   - undefined - The storage value is not in the resultset
+            return formatStorageChangeSet(
+                    keyIndex == null ? new StorageKeyIndex((Vector<StorageKey>) params.get(0)) : keyIndex,
+                    result);
         }
 
         Codec base = CreateType.createType(jsonRpcMethod.getType(), result);
@@ -192,74 +214,145 @@ public class RpcCore implements IRpcModule {
                     && key.getMeta().getType().isMap()
                     && key.getMeta().getType().asMap().isLinked()) {
 
-                // linked map
-                return clazz.newInstance(base);
+                // linked map, null for an entry not in the map
+                return result == null ? null : clazz.newInstance(base);
             } else {
                 if (meta == null || meta.getModifier().isOptional()) {
                     return new Option<>(clazz, result == null ? null : clazz.newInstance(base));
                 } else {
-                    return clazz.newInstance(base);
+                    // for `null` we fallback to the default value, as for the StorageChangeSet below
+                    return clazz.newInstance(result == null ? meta.getDefault() : base);
                 }
             }
 
-        } else if (jsonRpcMethod.getType().equals("StorageChangeSet")) {
-            // multiple return values (via state.storage subscription), decode the values
-            // one at a time, all based on the query types. Three values can be returned -
-            //   - Base - There is a valid value, non-empty
-            //   - null - The storage key is empty (but in the resultset)
-            //   - undefined - The storage value is not in the resultset
-            List<Codec> ret = Lists.newArrayList();
-            Vector<StorageKey> keys = (Vector<StorageKey>) params.get(0);
-            for (StorageKey key : keys) {
-                // Fallback to Data (i.e. just the encoding) if we don't have a specific type
-
-                String type = key.getOutputType();
-                if (StringUtils.isEmpty(type)) {
-                    type = "Data";
+        }
+
+        return base;
+    }
+
+    private static Object parseJson(Object result) {
+        if (result instanceof String) {
+            String json = ((String) result).trim();
+
+            if (json.startsWith("{")) {
+                try {
+                    JSONObject jsonObject = JSON.parseObject((String) result);
+                    result = jsonObject;
+                } catch (Exception e) {
                 }
-                Types.ConstructorCodec clazz = CreateType.createClass(type);
-
-                // see if we have a result value for this specific key
-                String hexKey = key.toHex();
-                KeyValue.KeyValueOption option = ((StorageChangeSet) base).getChanges()
-                        .stream()
-                        .filter(item -> item.getKey().toHex().equals(hexKey))
-                        .findFirst().orElse(null);
-
-                Modules.StorageFunctionMetadata meta = key.getMeta();
-                //const meta = meta || { default: undefined, modifier: { isOptional: true } };
-
-                if (option == null) {
-                    // if we don't have a value, do not fill in the entry, it will be up to the
-                    // caller to sort this out, either ignoring or having a cache for older values
-                    ret.add(null);
-                } else {
-                    if (key.getMeta() != null
-                            && key.getMeta().getType().isMap()
-                            && key.getMeta().getType().asMap().isLinked()) {
+            } else if (json.startsWith("[")) {
+                try {
+                    JSONArray jsonArray = JSON.parseArray((String) result);
+                    result = jsonArray;
+                } catch (Exception e) {
+                }
+            }
+        }
+        return result;
+    }
 
-                        // linked map
-                        ret.add(clazz.newInstance(option.getValue().unwrapOr(null)));
-                    } else {
-                        if (meta == null || meta.getModifier().isOptional()) {
-
-                            // create option either with the existing value, or empty when
-                            // there is no value returned
-                            ret.add(new Option(clazz, option.getValue().isNone() ? null : clazz.newInstance(option.getValue().unwrap())));
-                        } else {
-                            // for `null` we fallback to the default value, or create an empty type,
-                            // otherwise we return the actual value as retrieved
-                            ret.add(clazz.newInstance(option.getValue().unwrapOr(meta.getDefault())));
-                        }
-                    }
+    /**
+     * The keys of a storage subscription, indexed by their raw bytes once (when subscribing), so that the
+     * changes of every notification are matched to the keys in one pass
+     */
+    static class StorageKeyIndex {
+        private final List<StorageKey> keys;
+        private final Map<ByteBuffer, Integer> indexes = new HashMap<>();
+        // the position of the first identical key, for the keys subscribed more than once
+        private final int[] firsts;
+
+        StorageKeyIndex(List<StorageKey> keys) {
+            this.keys = keys;
+            this.firsts = new int[keys.size()];
+            for (int i = 0; i < keys.size(); i++) {
+                Integer first = this.indexes.putIfAbsent(ByteBuffer.wrap(keys.get(i).toU8a(true)), i);
+                this.firsts[i] = first == null ? i : first;
+            }
+        }
+
+        Integer indexOf(byte[] key) {
+            return this.indexes.get(ByteBuffer.wrap(key));
+        }
+    }
 
+    /**
+     * The raw values (hex, null when empty) of the subscribed keys in the change set, by the index of the keys.
+     * A key subscribed more than once is found at its first index.
+     */
+    private static Map<Integer, String> storageChanges(StorageKeyIndex keyIndex, Object result) {
+        Map<Integer, String> changes = new LinkedHashMap<>();
+        if (result instanceof Map && ((Map) result).get("changes") instanceof List) {
+            // straight from the json, [key, value] pairs
+            for (Object change : (List<?>) ((Map) result).get("changes")) {
+                List<?> keyValue = (List<?>) change;
+                Integer index = keyIndex.indexOf(Utils.hexToU8a((String) keyValue.get(0)));
+                if (index != null) {
+                    changes.put(index, (String) keyValue.get(1));
+                }
+            }
+        } else {
+            for (KeyValue.KeyValueOption change : new StorageChangeSet(result).getChanges()) {
+                Integer index = keyIndex.indexOf(change.getKey().toU8a(true));
+                if (index != null) {
+                    changes.put(index, change.getValue().isNone() ? null : change.getValue().unwrap().toHex());
                 }
             }
+        }
+        return changes;
+    }
 
-            return ret;
+    /**
+     * The values of the keys in the change set, null for the keys not in the change set. Only the changes
+     * of the subscribed keys are decoded.
+     */
+    private static List<Codec> formatStorageChangeSet(StorageKeyIndex keyIndex, Object result) {
+        Codec[] ret = new Codec[keyIndex.keys.size()];
+        Types.ConstructorCodec optionData = Option.with(TypesUtils.getConstructorCodec(StorageData.class));
+
+        for (Map.Entry<Integer, String> change : storageChanges(keyIndex, result).entrySet()) {
+            ret[change.getKey()] = decodeStorageChange(keyIndex.keys.get(change.getKey()), (Option<StorageData>) optionData.newInstance(change.getValue()));
         }
 
-        return base;
+        // if we don't have a value, do not fill in the entry, it will be up to the
+        // caller to sort this out, either ignoring or having a cache for older values
+        for (int i = 0; i < ret.length; i++) {
+            if (keyIndex.firsts[i] != i) {
+                ret[i] = ret[keyIndex.firsts[i]];
+            }
+        }
+        return Lists.newArrayList(ret);
+    }
+
+    /**
+     * Decodes the value of a key in a StorageChangeSet, based on the type and the metadata of the key
+     */
+    public static Codec decodeStorageChange(StorageKey key, Option<StorageData> value) {
+        // Fallback to Data (i.e. just the encoding) if we don't have a specific type
+        String type = key.getOutputType();
+        if (StringUtils.isEmpty(type)) {
+            type = "Data";
+        }
+        Types.ConstructorCodec clazz = CreateType.createClass(type);
+
+        Modules.StorageFunctionMetadata meta = key.getMeta();
+        //const meta = meta || { default: undefined, modifier: { isOptional: true } };
+
+        if (meta != null
+                && meta.getType().isMap()
+                && meta.getType().asMap().isLinked()) {
+
+            // linked map
+            return clazz.newInstance(value.unwrapOr(null));
+        } else if (meta == null || meta.getModifier().isOptional()) {
+
+            // create option either with the existing value, or empty when
+            // there is no value returned
+            return new Option(clazz, value.isNone() ? null : clazz.newInstance(value.unwrap()));
+        } else {
+            // for `null` we fallback to the default value, or create an empty type,
+            // otherwise we return the actual value as retrieved
+            return clazz.newInstance(value.unwrapOr(meta.getDefault()));
+        }
     }
 
     public IRpcFunction createMethodSubscribe(JsonRpcMethod jsonRpcMethod) {
@@ -291,6 +384,10 @@ public class RpcCore implements IRpcModule {
 
                     List<Codec> params = RpcCore.this.formatInputs(jsonRpcMethod, values);
                     List<Object> paramsJson = params.stream().map(Codec::toJson).collect(Collectors.toList());
+                    // the keys are indexed once for all the notifications
+                    StorageKeyIndex keyIndex = jsonRpcMethod.getType().equals("StorageChangeSet")
+                            ? new StorageKeyIndex((Vector<StorageKey>) params.get(0))
+                            : null;
 
                     if (cb != null) {
                         SubscribeCallback finalCb = cb;
@@ -301,7 +398,16 @@ public class RpcCore implements IRpcModule {
                                 return;
                             }
 
-                            finalCb.callback(RpcCore.this.formatOutput(jsonRpcMethod, params, result));
+                            if (keyIndex != null && finalCb instanceof StorageChangesCallback) {
+                                // the raw changes, decoded (or not) by the callback
+                                Map<Integer, String> changes = storageChanges(keyIndex, parseJson(result));
+                                if (!changes.isEmpty()) {
+                                    finalCb.callback(changes);
+                                }
+                                return;
+                            }
+
+                            finalCb.callback(RpcCore.this.formatOutput(jsonRpcMethod, params, keyIndex, result));
                         };
 
                         Promise<String> subscribe = RpcCore.this.provider.subscribe(subType, subName, paramsJson, update);
@@ -329,7 +435,7 @@ public class RpcCore implements IRpcModule {
                                     if (err != null) {
                                         handler.reject(err);
                                     } else {
-                                        Object output = RpcCore.this.formatOutput(jsonRpcMethod, params, result);
+                                        Object output = RpcCore.this.formatOutput(jsonRpcMethod, params, keyIndex, result);
                                         handler.resolve(output);
                                     }
                                 };
@@ -1,6 +1,7 @@
 package org.polkadot.rpc.provider;
 
 import com.onehilltech.promises.Promise;
+import org.apache.commons.lang3.tuple.Pair;
 import org.polkadot.common.EventEmitter;
 
 import java.util.List;
@@ -82,6 +83,19 @@ public interface IProvider {
 
     Promise<String> send(String method, List<Object> params, SubscriptionHandler subscriptionHandler);
 
+    /**
+     * Sends the requests (method, params) in one JSON-RPC batch when the provider supports it, one by one otherwise
+     *
+     * @return the results, in the order of the requests, rejected when any request fails
+     */
+    default Promise<List<Object>> sendBatch(List<Pair<String, List<Object>>> requests) {
+        Promise[] results = new Promise[requests.size()];
+        for (int i = 0; i < results.length; i++) {
+            results[i] = this.send(requests.get(i).getLeft(), requests.get(i).getRight(), null);
+        }
+        return Promise.all(results);
+    }
+
     //TODO 2019-04-26 15:10
     Promise<String> subscribe(String type, String method, List<Object> params, CallbackHandler cb);
 
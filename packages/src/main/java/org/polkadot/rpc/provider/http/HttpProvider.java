@@ -3,6 +3,7 @@ package org.polkadot.rpc.provider.http;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
 import com.onehilltech.promises.Promise;
+import org.apache.commons.lang3.tuple.Pair;
 import org.apache.http.HttpHeaders;
 import org.apache.http.HttpStatus;
 import org.polkadot.common.EventEmitter;
@@ -13,7 +14,10 @@ import org.polkadot.rpc.provider.coder.RpcCoder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * # @polkadot/rpc-provider/https
@@ -113,6 +117,42 @@ public class HttpProvider implements IProvider {
         });
     }
 
+    /**
+     * Sends the requests in one HTTP POST, as a JSON-RPC batch (an array of requests)
+     */
+    @Override
+    public Promise<List<Object>> sendBatch(List<Pair<String, List<Object>>> requests) {
+        return new Promise((handler) -> {
+            try {
+                List<Types.JsonRpcRequest> jsonRpcRequests = new ArrayList<>();
+                for (Pair<String, List<Object>> request : requests) {
+                    jsonRpcRequests.add(this.coder.encodeObject(request.getLeft(), request.getRight()));
+                }
+                String body = JSON.toJSONString(jsonRpcRequests);
+
+                HttpClient.HeadOptions options = HttpClient.HeadOptions.build()
+                        .setContentType("application/json")
+                        .setHeader(HttpHeaders.ACCEPT, "application/json")
+                        .setHeader(HttpHeaders.CONTENT_LENGTH, body.length() + "");
+                HttpClient.HttpResp response = HttpClient.post(this.endpoint, body, options);
+
+                assert response.getStatus() == HttpStatus.SC_OK : "[" + response.getStatus() + "]: " + response.getBody();
+
+                // the responses of a batch may come in any order
+                Map<Integer, Types.JsonRpcResponse> responses = new HashMap<>();
+                for (Types.JsonRpcResponse jsonRpcResponse : JSON.parseArray(response.getBody(), Types.JsonRpcResponse.class)) {
+                    responses.put(jsonRpcResponse.getId(), jsonRpcResponse);
+                }
+                List<Object> results = new ArrayList<>();
+                for (Types.JsonRpcRequest jsonRpcRequest : jsonRpcRequests) {
+                    results.add(this.coder.decodeResponse(responses.get(jsonRpcRequest.getId())));
+                }
+                handler.resolve(results);
+            } catch (Exception e1) {
+                handler.reject(e1);
+            }
+        });
+    }
 
     /**
      * Subscriptions are not supported with the HttpProvider, see {@link org.polkadot.rpc.provider.ws.WsProvider}.
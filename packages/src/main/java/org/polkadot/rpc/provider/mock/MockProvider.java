@@ -0,0 +1,523 @@
+package org.polkadot.rpc.provider.mock;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.google.common.collect.Lists;
+import com.onehilltech.promises.Promise;
+import org.apache.commons.lang3.tuple.Pair;
+import org.polkadot.common.EventEmitter;
+import org.polkadot.common.ExecutorsManager;
+import org.polkadot.rpc.provider.IProvider;
+import org.polkadot.rpc.provider.Types;
+import org.polkadot.rpc.provider.coder.RpcCoder;
+import org.polkadot.types.metadata.Metadata;
+import org.polkadot.types.type.Header;
+import org.polkadot.utils.Utils;
+import org.polkadot.utils.UtilsCrypto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * # @polkadot/rpc-provider/mock
+ * MockProvider
+ * A local, in-memory node to run the api against without a chain. It serves the calls needed by the
+ * api to get ready (metadata, runtime version, genesis hash, health), the state storage calls
+ * (`state_getStorage`, `state_subscribeStorage`, `state_queryStorage`) from a key/value map, kept
+ * for every block, and the new heads (`chain_subscribeNewHead`) produced with {@link #newHead()},
+ * answering every request after the configured latency. The number of requests received per method is recorded.
+ * <p>
+ * The extrinsics received by `author_submitExtrinsic` are put in the next block (`chain_getBlock`), the blocks
+ * are finalized (`chain_subscribeFinalisedHeads`) as soon as they are produced, or after the finality lag. The
+ * blocks not finalized can be replaced by a fork with {@link #fork(int)}.
+ * <p>
+ * **Example**
+ * <p>
+ * ```java
+ * import org.polkadot.rpc.provider.mock.MockProvider;
+ * <p>
+ * MockProvider provider = new MockProvider(2);
+ * provider.setStorage("0x...", "0x0100000000000000");
+ * ApiPromise.create(provider).then(api -> ...);
+ * ```
+ */
+public class MockProvider implements IProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(MockProvider.class);
+
+    private static final String EMPTY_HASH = "0x" + new String(new char[64]).replace('\0', '0');
+    private static final String RUNTIME_VERSION = "{\"specName\":\"node\",\"implName\":\"substrate-node\","
+            + "\"authoringVersion\":1,\"specVersion\":1,\"implVersion\":1,\"apis\":[]}";
+    private static final String HEALTH = "{\"peers\":0,\"isSyncing\":false,\"shouldHavePeers\":false}";
+
+    static class Subscription {
+        final String type;
+        final String method;
+        final List<String> keys;
+        final CallbackHandler<Exception, Object> cb;
+
+        Subscription(String type, String method, List<String> keys, CallbackHandler<Exception, Object> cb) {
+            this.type = type;
+            this.method = method;
+            this.keys = keys;
+            this.cb = cb;
+        }
+    }
+
+    private final RpcCoder coder = new RpcCoder();
+    private final EventEmitter eventemitter = new EventEmitter();
+    private final long latency;
+
+    private final Map<String, Function<List<Object>, Object>> requests = new HashMap<>();
+    private final Map<String, String> storage = new ConcurrentHashMap<>();
+    private final Map<Integer, Subscription> subscriptions = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriptionId = new AtomicInteger(0);
+    private final List<String> blockHashes = new CopyOnWriteArrayList<>();
+    private final List<JSONObject> headers = new CopyOnWriteArrayList<>();
+    private final Map<String, Integer> blockNumbers = new ConcurrentHashMap<>();
+    // the storage of the blocks before the head, the head storage is the live one
+    private final List<Map<String, String>> states = new CopyOnWriteArrayList<>();
+    private volatile JSONObject head;
+    // the extrinsics (hex) submitted since the last block, and the extrinsics of every block
+    private final List<String> pool = new ArrayList<>();
+    private final Map<String, List<String>> extrinsics = new ConcurrentHashMap<>();
+    private volatile int finalityLag = 0;
+    private volatile String finalizedHash;
+    private volatile JSONObject runtimeVersion = JSON.parseObject(RUNTIME_VERSION);
+    private volatile String blockHash;
+    // the number of reorganisations, making the blocks of a fork differ from the blocks replaced
+    private int forks = 0;
+
+    public MockProvider() {
+        this(0);
+    }
+
+    /**
+     * @param latency the time (in milliseconds) the node takes to answer any request or to send a notification
+     */
+    public MockProvider(long latency) {
+        this.latency = latency;
+
+        this.requests.put("chain_getBlockHash", params -> params.isEmpty() || params.get(0) == null
+                ? this.blockHash
+                // null after the head, as a node does
+                : ((Number) params.get(0)).intValue() < this.blockHashes.size() ? this.blockHashes.get(((Number) params.get(0)).intValue()) : null);
+        this.requests.put("chain_getHeader", params -> params.isEmpty() || params.get(0) == null
+                ? this.head
+                : this.headers.get(this.blockNumber(params.get(0))));
+        this.requests.put("chain_getBlock", params -> this.block(params.isEmpty() || params.get(0) == null
+                ? this.blockHash
+                : (String) params.get(0)));
+        this.requests.put("chain_getFinalizedHead", params -> this.finalizedHash);
+        this.requests.put("author_submitExtrinsic", params -> this.submitExtrinsic((String) params.get(0)));
+        this.requests.put("chain_getRuntimeVersion", params -> this.runtimeVersion);
+        this.requests.put("state_getRuntimeVersion", params -> this.runtimeVersion);
+        this.requests.put("state_getMetadata", params -> Metadata.meta);
+        this.requests.put("state_getStorage", params -> params.size() < 2 || params.get(1) == null
+                ? this.storage.get((String) params.get(0))
+                : this.state(this.blockNumber(params.get(1))).get((String) params.get(0)));
+        this.requests.put("state_queryStorage", this::queryStorage);
+        this.requests.put("system_chain", params -> "mock");
+        this.requests.put("system_health", params -> JSON.parseObject(HEALTH));
+        this.requests.put("system_name", params -> "mock-node");
+        this.requests.put("system_version", params -> "1.0.0");
+
+        this.newHead();
+    }
+
+    /**
+     * Produces the next block (the genesis on creation), notifying the new head subscriptions
+     *
+     * @return the hash of the new block
+     */
+    public synchronized String newHead() {
+        if (this.blockHash != null) {
+            this.states.add(new HashMap<>(this.storage));
+        }
+
+        List<String> blockExtrinsics;
+        synchronized (this.pool) {
+            blockExtrinsics = new ArrayList<>(this.pool);
+            this.pool.clear();
+        }
+
+        JSONObject header = new JSONObject(true);
+        header.put("parentHash", this.blockHash == null ? EMPTY_HASH : this.blockHash);
+        header.put("number", this.blockHashes.size());
+        header.put("stateRoot", this.forks == 0 ? EMPTY_HASH : Utils.u8aToHex(UtilsCrypto.blake2AsU8a(Utils.stringToU8a("fork" + this.forks), 256)));
+        header.put("extrinsicsRoot", EMPTY_HASH);
+        header.put("digest", JSON.parseObject("{\"logs\":[]}"));
+
+        this.head = header;
+        this.blockHash = new Header(header).getHash().toHex();
+        this.blockNumbers.put(this.blockHash, this.blockHashes.size());
+        this.blockHashes.add(this.blockHash);
+        this.headers.add(header);
+        this.extrinsics.put(this.blockHash, blockExtrinsics);
+
+        for (Map.Entry<Integer, Subscription> entry : this.subscriptions.entrySet()) {
+            if ("chain_subscribeNewHead".equals(entry.getValue().method)) {
+                this.notify(entry.getKey(), entry.getValue(), header);
+            }
+        }
+
+        int finalized = this.headers.size() - 1 - this.finalityLag;
+        if (finalized >= 0 && !this.blockHashes.get(finalized).equals(this.finalizedHash)) {
+            this.finalizedHash = this.blockHashes.get(finalized);
+            for (Map.Entry<Integer, Subscription> entry : this.subscriptions.entrySet()) {
+                if ("chain_subscribeFinalisedHeads".equals(entry.getValue().method)) {
+                    this.notify(entry.getKey(), entry.getValue(), this.headers.get(finalized));
+                }
+            }
+        }
+        return this.blockHash;
+    }
+
+    /**
+     * Replaces the last blocks with a new block on their parent (a reorganisation), notifying the new head
+     * subscriptions. The blocks replaced must not be finalized.
+     *
+     * @param depth the number of blocks replaced
+     * @return the hash of the new block
+     */
+    public synchronized String fork(int depth) {
+        int number = this.blockHashes.size() - depth;
+        assert depth > 0 && number > this.blockNumber(this.finalizedHash) : "Unable to replace " + depth + " blocks, finalized blocks can't be replaced";
+
+        for (int i = this.blockHashes.size() - 1; i >= number; i--) {
+            this.blockNumbers.remove(this.blockHashes.remove(i));
+            this.headers.remove(i);
+        }
+        while (this.states.size() > number - 1) {
+            this.states.remove(this.states.size() - 1);
+        }
+        this.blockHash = this.blockHashes.get(number - 1);
+        this.head = this.headers.get(number - 1);
+        this.forks++;
+        return this.newHead();
+    }
+
+    /**
+     * The number of blocks produced before a block is finalized, 0 to finalize every block when produced
+     */
+    public void setFinalityLag(int finalityLag) {
+        this.finalityLag = finalityLag;
+    }
+
+    /**
+     * The extrinsics (hex) submitted and not yet put in a block
+     */
+    public List<String> getPool() {
+        synchronized (this.pool) {
+            return new ArrayList<>(this.pool);
+        }
+    }
+
+    /**
+     * Sets (or with a null value, removes) a storage entry, notifying the subscriptions on that key
+     */
+    public void setStorage(String key, String value) {
+        if (value == null) {
+            this.storage.remove(key);
+        } else {
+            this.storage.put(key, value);
+        }
+
+        for (Map.Entry<Integer, Subscription> entry : this.subscriptions.entrySet()) {
+            if (entry.getValue().keys.contains(key)) {
+                this.notify(entry.getKey(), entry.getValue(), this.changeSet(Lists.newArrayList(key)));
+            }
+        }
+    }
+
+    /**
+     * Upgrades the runtime (the metadata stays the same), notifying the runtime version subscriptions
+     */
+    public void setSpecVersion(int specVersion) {
+        JSONObject runtimeVersion = JSON.parseObject(RUNTIME_VERSION);
+        runtimeVersion.put("specVersion", specVersion);
+        this.runtimeVersion = runtimeVersion;
+
+        for (Map.Entry<Integer, Subscription> entry : this.subscriptions.entrySet()) {
+            if ("chain_subscribeRuntimeVersion".equals(entry.getValue().method)) {
+                this.notify(entry.getKey(), entry.getValue(), runtimeVersion);
+            }
+        }
+    }
+
+    /**
+     * Answers the method with the function, an exception thrown being sent back as the error
+     */
+    public void setRequest(String method, Function<List<Object>, Object> request) {
+        this.requests.put(method, request);
+    }
+
+    public String getBlockHash() {
+        return this.blockHash;
+    }
+
+    /**
+     * The number of requests received for the method (subscribe and unsubscribe calls included)
+     */
+    public long getRequestCount(String method) {
+        AtomicLong counter = this.counters.get(method);
+        return counter == null ? 0 : counter.get();
+    }
+
+    /**
+     * The number of requests received, all methods
+     */
+    public long getRequestCount() {
+        return this.counters.values().stream().mapToLong(AtomicLong::get).sum();
+    }
+
+    public void resetRequestCount() {
+        this.counters.clear();
+    }
+
+    @Override
+    public boolean isHasSubscriptions() {
+        return true;
+    }
+
+    @Override
+    public IProvider clone() {
+        throw new UnsupportedOperationException("Unimplemented");
+    }
+
+    @Override
+    public void disconnect() {
+        //noop
+    }
+
+    @Override
+    public boolean isConnected() {
+        return true;
+    }
+
+    @Override
+    public void on(ProviderInterfaceEmitted emitted, EventEmitter.EventListener cb) {
+        this.eventemitter.on(emitted, cb);
+    }
+
+    @Override
+    public Promise<String> send(String method, List<Object> params, SubscriptionHandler subscriptionHandler) {
+        return new Promise((handler) -> {
+            this.counters.computeIfAbsent(method, k -> new AtomicLong()).incrementAndGet();
+
+            Function<List<Object>, Object> request = this.requests.get(method);
+            if (request == null) {
+                handler.reject(new RuntimeException("Mock provider does not implement " + method));
+                return;
+            }
+
+            this.schedule(() -> {
+                try {
+                    handler.resolve(this.reply(request.apply(params)));
+                } catch (Exception e) {
+                    handler.reject(e);
+                }
+            });
+        });
+    }
+
+    /**
+     * Answers the requests in one round trip, counted as `batch` along with every request
+     */
+    @Override
+    public Promise<List<Object>> sendBatch(List<Pair<String, List<Object>>> requests) {
+        return new Promise((handler) -> {
+            this.counters.computeIfAbsent("batch", k -> new AtomicLong()).incrementAndGet();
+            List<Function<List<Object>, Object>> functions = new ArrayList<>();
+            for (Pair<String, List<Object>> request : requests) {
+                this.counters.computeIfAbsent(request.getLeft(), k -> new AtomicLong()).incrementAndGet();
+                Function<List<Object>, Object> function = this.requests.get(request.getLeft());
+                if (function == null) {
+                    handler.reject(new RuntimeException("Mock provider does not implement " + request.getLeft()));
+                    return;
+                }
+                functions.add(function);
+            }
+
+            this.schedule(() -> {
+                try {
+                    List<Object> results = new ArrayList<>();
+                    for (int i = 0; i < functions.size(); i++) {
+                        results.add(this.reply(functions.get(i).apply(requests.get(i).getRight())));
+                    }
+                    handler.resolve(results);
+                } catch (Exception e) {
+                    handler.reject(e);
+                }
+            });
+        });
+    }
+
+    @Override
+    public Promise<String> subscribe(String type, String method, List<Object> params, CallbackHandler cb) {
+        return new Promise((handler) -> {
+            this.counters.computeIfAbsent(method, k -> new AtomicLong()).incrementAndGet();
+
+            int id = this.subscriptionId.incrementAndGet();
+            List<String> keys = Lists.newArrayList();
+            if ("state_subscribeStorage".equals(method)) {
+                for (Object key : (List<?>) params.get(0)) {
+                    keys.add((String) key);
+                }
+            } else if (!"chain_subscribeNewHead".equals(method) && !"chain_subscribeFinalisedHeads".equals(method)
+                    && !"chain_subscribeRuntimeVersion".equals(method)) {
+                handler.reject(new RuntimeException("Mock provider does not implement " + method));
+                return;
+            }
+            Subscription subscription = new Subscription(type, method, keys, cb);
+            this.subscriptions.put(id, subscription);
+
+            // like a node, the subscription id is followed by the current values
+            this.schedule(() -> handler.resolve(String.valueOf(id)));
+            Object current;
+            if ("chain_subscribeRuntimeVersion".equals(method)) {
+                current = this.runtimeVersion;
+            } else if ("chain_subscribeFinalisedHeads".equals(method)) {
+                current = this.headers.get(this.blockNumber(this.finalizedHash));
+            } else {
+                current = keys.isEmpty() ? this.head : this.changeSet(keys);
+            }
+            this.notify(id, subscription, current);
+        });
+    }
+
+    @Override
+    public Promise<String> unsubscribe(String type, String method, int id) {
+        this.counters.computeIfAbsent(method, k -> new AtomicLong()).incrementAndGet();
+
+        if (this.subscriptions.remove(id) == null) {
+            logger.info("Unable to find active subscription={}::{}", type, id);
+            return Promise.reject(new RuntimeException("Unable to find active subscription=" + type + "::" + id));
+        }
+        return new Promise((handler) -> this.schedule(() -> handler.resolve(Boolean.TRUE.toString())));
+    }
+
+    private int blockNumber(Object hash) {
+        Integer number = this.blockNumbers.get((String) hash);
+        if (number == null) {
+            throw new RuntimeException("Unknown block " + hash);
+        }
+        return number;
+    }
+
+    private Map<String, Object> block(String hash) {
+        Map<String, Object> block = new LinkedHashMap<>();
+        block.put("header", this.headers.get(this.blockNumber(hash)));
+        block.put("extrinsics", this.extrinsics.get(hash));
+
+        Map<String, Object> signedBlock = new LinkedHashMap<>();
+        signedBlock.put("block", block);
+        signedBlock.put("justification", null);
+        return signedBlock;
+    }
+
+    private String submitExtrinsic(String extrinsic) {
+        synchronized (this.pool) {
+            this.pool.add(extrinsic);
+        }
+        return Utils.u8aToHex(UtilsCrypto.blake2AsU8a(Utils.hexToU8a(extrinsic), 256));
+    }
+
+    private Map<String, String> state(int blockNumber) {
+        return blockNumber < this.states.size() ? this.states.get(blockNumber) : this.storage;
+    }
+
+    /**
+     * The change sets of the keys from the start block (reporting all the keys set) to the given block (or the head)
+     */
+    private List<Map<String, Object>> queryStorage(List<Object> params) {
+        int from = this.blockNumber(params.get(1));
+        int to = params.size() < 3 || params.get(2) == null ? this.blockHashes.size() - 1 : this.blockNumber(params.get(2));
+
+        List<Map<String, Object>> changeSets = Lists.newArrayList();
+        Map<String, String> last = new HashMap<>();
+        for (int number = from; number <= to; number++) {
+            Map<String, String> state = this.state(number);
+            List<List<String>> changes = Lists.newArrayList();
+            for (Object key : (List<?>) params.get(0)) {
+                String value = state.get((String) key);
+                if (!Objects.equals(value, last.get((String) key))) {
+                    changes.add(Lists.newArrayList((String) key, value));
+                }
+                last.put((String) key, value);
+            }
+            if (!changes.isEmpty()) {
+                Map<String, Object> changeSet = new LinkedHashMap<>();
+                changeSet.put("block", this.blockHashes.get(number));
+                changeSet.put("changes", changes);
+                changeSets.add(changeSet);
+            }
+        }
+        return changeSets;
+    }
+
+    private Map<String, Object> changeSet(List<String> keys) {
+        List<List<String>> changes = Lists.newArrayList();
+        for (String key : keys) {
+            changes.add(Lists.newArrayList(key, this.storage.get(key)));
+        }
+        Map<String, Object> changeSet = new LinkedHashMap<>();
+        changeSet.put("block", this.blockHash);
+        changeSet.put("changes", changes);
+        return changeSet;
+    }
+
+    private void notify(int id, Subscription subscription, Object result) {
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("result", result);
+        params.put("subscription", id);
+
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("jsonrpc", "2.0");
+        message.put("method", subscription.type);
+        message.put("params", params);
+        String json = JSON.toJSONString(message);
+
+        this.schedule(() -> {
+            if (!this.subscriptions.containsKey(id)) {
+                return;
+            }
+            try {
+                Types.JsonRpcResponse response = JSONObject.parseObject(json, Types.JsonRpcResponse.class);
+                subscription.cb.callback(null, this.coder.decodeResponse(response));
+            } catch (Exception e) {
+                subscription.cb.callback(e, null);
+            }
+        });
+    }
+
+    /**
+     * Goes through the same encoding and decoding as a response received over the wire
+     */
+    private Object reply(Object result) {
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("jsonrpc", "2.0");
+        message.put("id", this.coder.getId());
+        message.put("result", result);
+
+        Types.JsonRpcResponse response = JSONObject.parseObject(JSON.toJSONString(message), Types.JsonRpcResponse.class);
+        return this.coder.decodeResponse(response);
+    }
+
+    private void schedule(Runnable runnable) {
+        ExecutorsManager.schedule(runnable, this.latency, TimeUnit.MILLISECONDS);
+    }
+}
@@ -5,6 +5,7 @@ import com.alibaba.fastjson.JSONObject;
 import com.google.common.collect.Lists;
 import com.onehilltech.promises.Promise;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.tuple.Pair;
 import org.java_websocket.WebSocket;
 import org.java_websocket.client.WebSocketClient;
 import org.java_websocket.handshake.ServerHandshake;
@@ -23,6 +24,8 @@ import java.net.URI;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 
 
@@ -156,6 +159,14 @@ public class WsProvider implements IWsProvider {
                 public void onMessage(String message) {
                     logger.debug("WebSocket onMessage:{}", message);
 
+                    if (message.startsWith("[")) {
+                        // the responses of a batch
+                        for (JsonRpcResponse response : JSON.parseArray(message, JsonRpcResponse.class)) {
+                            wsProvider.onSocketMessageResult(response);
+                        }
+                        return;
+                    }
+
                     JsonRpcResponse response = JSONObject.parseObject(message, JsonRpcResponse.class);
                     if (StringUtils.isEmpty(response.getMethod())) {
                         wsProvider.onSocketMessageResult(response);
@@ -313,6 +324,60 @@ public class WsProvider implements IWsProvider {
         });
     }
 
+    /**
+     * Sends the requests in one message, as a JSON-RPC batch (an array of requests), each request answered on
+     * its own like a sent one
+     */
+    @Override
+    public Promise<List<Object>> sendBatch(List<Pair<String, List<Object>>> requests) {
+        if (requests.isEmpty()) {
+            return Promise.value(new ArrayList<>());
+        }
+
+        return new Promise<>((handler) -> {
+            List<Types.JsonRpcRequest> jsonRpcRequests = new ArrayList<>();
+            Object[] results = new Object[requests.size()];
+            AtomicInteger remaining = new AtomicInteger(results.length);
+            AtomicBoolean failed = new AtomicBoolean(false);
+            try {
+                // the handlers are all registered before the message goes out
+                for (int i = 0; i < results.length; i++) {
+                    int index = i;
+                    Types.JsonRpcRequest jsonRpcRequest = this.coder.encodeObject(requests.get(i).getLeft(), requests.get(i).getRight());
+                    jsonRpcRequests.add(jsonRpcRequest);
+                    CallbackHandler<Exception, Object> callback = (err, result) -> {
+                        if (err != null) {
+                            if (failed.compareAndSet(false, true)) {
+                                handler.reject(err);
+                            }
+                        } else {
+                            results[index] = result;
+                            if (remaining.decrementAndGet() == 0 && !failed.get()) {
+                                handler.resolve(Arrays.asList(results));
+                            }
+                        }
+                    };
+                    this.handlers.put(jsonRpcRequest.getId(), new WsStateAwaiting(callback, jsonRpcRequest.getMethod(), jsonRpcRequest.getParams(), null));
+                }
+
+                String json = JSON.toJSONString(jsonRpcRequests);
+                logger.debug("call batch {}", json);
+                if (this.isConnected() && this.webSocket != null) {
+                    this.webSocket.send(json);
+                } else {
+                    this.queued.add(json);
+                }
+            } catch (Exception e) {
+                for (Types.JsonRpcRequest jsonRpcRequest : jsonRpcRequests) {
+                    this.handlers.remove(jsonRpcRequest.getId());
+                }
+                if (failed.compareAndSet(false, true)) {
+                    handler.reject(e);
+                }
+            }
+        });
+    }
+
     private void resubscribe() {
         Map<String, WsStateSubscription> subscriptions = new HashMap<>(this.subscriptions);
         this.subscriptions.clear();
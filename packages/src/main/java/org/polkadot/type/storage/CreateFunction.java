@@ -1,8 +1,8 @@
 package org.polkadot.type.storage;
 
-import com.google.common.collect.Lists;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.polkadot.types.Types;
 import org.polkadot.types.codec.CreateType;
 import org.polkadot.types.metadata.v0.Modules;
 import org.polkadot.types.metadata.v2.Storage;
@@ -11,11 +11,17 @@ import org.polkadot.types.primitive.StorageKey;
 import org.polkadot.utils.Utils;
 import org.polkadot.utils.UtilsCrypto;
 
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
 public class CreateFunction {
 
+    private static final int HASH_BIT_LENGTH = 128;
+    private static final byte[] HASH_LENGTH_PREFIX = Utils.compactToU8a(HASH_BIT_LENGTH / 8);
+
+    private static final ThreadLocal<byte[]> BUFFER = ThreadLocal.withInitial(() -> new byte[256]);
+
     public static class CreateItemOptions {
         private boolean isUnhashed;
         private String key;
@@ -62,7 +68,7 @@ public class CreateFunction {
                 ? key
                 : section + " " + method;
         byte[] rawKey = Utils.stringToU8a(stringKey);
-
+        boolean isMap = meta.getType().isMap();
 
         // Can only have zero or one argument:
         // - storage.balances.freeBalance(address)
@@ -70,26 +76,37 @@ public class CreateFunction {
         StorageKey.StorageFunction storageFn = new StorageKey.StorageFunction() {
             String strKey = stringKey;
 
+            // the key of a plain entry never changes, only the map entries are computed per call
+            final byte[] plainKey = isMap ? null : encodeKey(rawKey, rawKey.length, isUnhashed);
+            // the map key codec, resolved on first use (the types may be registered after the metadata)
+            volatile Types.ConstructorCodec keyType;
+
             @Override
             public byte[] apply(Object... args) {
-                byte[] key = rawKey;
-                if (meta.getType().isMap()) {
-                    //assert args == null || args.length != 1
-                    assert ArrayUtils.isNotEmpty(args)
-                            : meta.getName() + "expects one argument";
+                if (!isMap) {
+                    return plainKey.clone();
+                }
 
-                    String type = meta.getType().asMap().getKey().toString();
-                    byte[] param = CreateType.createType(type, args[0]).toU8a(false);
+                //assert args == null || args.length != 1
+                assert ArrayUtils.isNotEmpty(args)
+                        : meta.getName() + "expects one argument";
 
-                    key = Utils.u8aConcat(Lists.newArrayList(key, param));
+                if (keyType == null) {
+                    keyType = CreateType.createClass(meta.getType().asMap().getKey().toString());
+                }
+                byte[] param = keyType.newInstance(args[0]).toU8a(false);
+
+                // the prefix and the param are hashed from a per-thread buffer, instead of a new concatenation per key
+                int length = rawKey.length + param.length;
+                byte[] buffer = BUFFER.get();
+                if (buffer.length < length) {
+                    buffer = new byte[Math.max(length, buffer.length * 2)];
+                    BUFFER.set(buffer);
                 }
+                System.arraycopy(rawKey, 0, buffer, 0, rawKey.length);
+                System.arraycopy(param, 0, buffer, rawKey.length, param.length);
 
-                // StorageKey is a Bytes, so is length-prefixed
-                return Utils.compactAddLength(
-                        isUnhashed
-                                ? key
-                                : UtilsCrypto.xxhashAsU8a(key, 128)
-                );
+                return encodeKey(buffer, length, isUnhashed);
             }
 
             @Override
@@ -131,4 +148,19 @@ public class CreateFunction {
 
         return storageFn;
     }
+
+    /**
+     * The storage key of the first `length` bytes of `key`, hashed unless `isUnhashed`.
+     * StorageKey is a Bytes, so is length-prefixed: the hash is written directly after the (fixed) prefix.
+     */
+    private static byte[] encodeKey(byte[] key, int length, boolean isUnhashed) {
+        if (isUnhashed) {
+            return Utils.compactAddLength(Arrays.copyOf(key, length));
+        }
+
+        byte[] encoded = new byte[HASH_LENGTH_PREFIX.length + HASH_BIT_LENGTH / 8];
+        System.arraycopy(HASH_LENGTH_PREFIX, 0, encoded, 0, HASH_LENGTH_PREFIX.length);
+        UtilsCrypto.xxhashAsU8a(key, 0, length, HASH_BIT_LENGTH, encoded, HASH_LENGTH_PREFIX.length);
+        return encoded;
+    }
 }
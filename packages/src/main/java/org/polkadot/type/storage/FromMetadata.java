@@ -6,8 +6,10 @@ import org.polkadot.types.primitive.Text;
 import org.polkadot.utils.Utils;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Extend a storage object with the storage modules & module functions present
@@ -27,18 +29,7 @@ public class FromMetadata {
             }
             Modules.StorageMetadata storageMetadata = moduleMetadata.getStorage().unwrap();
 
-            Text prefix = storageMetadata.getPrefix();
-
-            Types.ModuleStorage newModule = new Types.ModuleStorage();
-            // For access, we change the index names, i.e. Balances.FreeBalance -> balances.freeBalance
-            for (Modules.StorageFunctionMetadata func : storageMetadata.getFunctions()) {
-                newModule.addFunction(
-                        Utils.stringLowerFirst(func.getName().toString()),
-                        CreateFunction.createFunction(prefix.toString(), func.getName().toString(), func, false, null)
-                );
-            }
-
-            storageModules.put(Utils.stringLowerFirst(prefix.toString()), newModule);
+            storageModules.put(Utils.stringLowerFirst(storageMetadata.getPrefix().toString()), fromModule(storageMetadata));
         }
 
         return new Types.Storage() {
@@ -60,4 +51,55 @@ public class FromMetadata {
             }
         };
     }
+
+    /**
+     * Like fromMetadata, the storage functions of a module being only created when the module is first accessed
+     */
+    public static Types.Storage lazyFromMetadata(MetadataV0 metadata) {
+
+        Map<String, Modules.StorageMetadata> storageMetadatas = new LinkedHashMap<>();
+
+        for (Modules.RuntimeModuleMetadata moduleMetadata : metadata.getModules()) {
+            if (moduleMetadata.getStorage().isNone()) {
+                continue;
+            }
+            Modules.StorageMetadata storageMetadata = moduleMetadata.getStorage().unwrap();
+
+            storageMetadatas.put(Utils.stringLowerFirst(storageMetadata.getPrefix().toString()), storageMetadata);
+        }
+
+        return new Types.Storage() {
+            Map<String, Types.ModuleStorage> modules = new ConcurrentHashMap<>();
+
+            @Override
+            public Types.ModuleStorage section(String section) {
+                Modules.StorageMetadata storageMetadata = storageMetadatas.get(section);
+                return storageMetadata == null ? null : modules.computeIfAbsent(section, name -> fromModule(storageMetadata));
+            }
+
+            @Override
+            public Set<String> sectionNames() {
+                return storageMetadatas.keySet();
+            }
+
+            @Override
+            public Types.ModuleStorage substrate() {
+                return Substrate.substrate;
+            }
+        };
+    }
+
+    private static Types.ModuleStorage fromModule(Modules.StorageMetadata storageMetadata) {
+        Text prefix = storageMetadata.getPrefix();
+
+        Types.ModuleStorage newModule = new Types.ModuleStorage();
+        // For access, we change the index names, i.e. Balances.FreeBalance -> balances.freeBalance
+        for (Modules.StorageFunctionMetadata func : storageMetadata.getFunctions()) {
+            newModule.addFunction(
+                    Utils.stringLowerFirst(func.getName().toString()),
+                    CreateFunction.createFunction(prefix.toString(), func.getName().toString(), func, false, null)
+            );
+        }
+        return newModule;
+    }
 }
@@ -1,5 +1,7 @@
 package org.polkadot.types.primitive;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.primitives.UnsignedBytes;
 import org.apache.commons.lang3.ArrayUtils;
 import org.polkadot.direct.IFunction;
@@ -13,6 +15,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
 /**
@@ -107,9 +110,22 @@ public class Method extends Struct implements Types.IMethod {
         Modules.FunctionMetadata meta;
         String method;
         String section;
+        private volatile MethodEncoder encoder;
 
         public abstract Object toJson();
 
+        /**
+         * The encoder of the calls of the function, created on first use
+         */
+        public MethodEncoder getEncoder() {
+            MethodEncoder encoder = this.encoder;
+            if (encoder == null) {
+                encoder = new MethodEncoder(this.section + "." + this.method, this.callIndex, this.meta);
+                this.encoder = encoder;
+            }
+            return encoder;
+        }
+
         public byte[] getCallIndex() {
             return callIndex;
         }
@@ -159,14 +175,106 @@ public class Method extends Struct implements Types.IMethod {
 
     }
 
+    // the argument definitions of the functions, resolved once per (metadata) function
+    private static final Cache<Modules.FunctionMetadata, Types.ConstructorDef> ARGS_DEFS = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build();
+
     protected Modules.FunctionMetadata meta;
 
+    // the encoding the method was created from, when built by a MethodEncoder
+    private byte[] encoded;
+    // false until the args of an encoded method are decoded, on first access
+    private volatile boolean argsDecoded = true;
+
     public Method(Object value, Modules.FunctionMetadata meta) {
+        this(decodeMethod(value, meta));
+    }
+
+    private Method(DecodedMethod decoded) {
         super(new Types.ConstructorDef()
                         .add("callIndex", MethodIndex.class)
-                        .add("args", Struct.with(decodeMethod(value, meta).argsDef))
-                , decodeMethod(value, meta));
-        this.meta = decodeMethod(value, meta).meta;
+                        .add("args", Struct.with(decoded.argsDef))
+                , decoded);
+        this.meta = decoded.meta;
+    }
+
+    private Method(byte[] encoded, Modules.FunctionMetadata meta, Types.ConstructorDef argsDef) {
+        super(new Types.ConstructorDef()
+                        .add("callIndex", MethodIndex.class)
+                        .add("args", Struct.with(argsDef))
+                , null);
+        this.meta = meta;
+        this.encoded = encoded;
+        this.argsDecoded = false;
+        super.put("callIndex", new MethodIndex(ArrayUtils.subarray(encoded, 0, 2)));
+    }
+
+    /**
+     * The method of an encoding (call index and arguments) known to be valid. The encoding is kept as-is, the
+     * arguments are only decoded (creating their codecs) when accessed, e.g. by {@link #getArgs()} or toJson
+     */
+    public static Method fromEncoded(byte[] encoded, Modules.FunctionMetadata meta) {
+        return new Method(encoded, meta, getArgsDef(meta));
+    }
+
+    /**
+     * Decodes the arguments of a method created from its encoding
+     */
+    private void decodeArgs() {
+        if (this.argsDecoded) {
+            return;
+        }
+        synchronized (this) {
+            if (!this.argsDecoded) {
+                super.put("args", Struct.with(getArgsDef(this.meta)).newInstance(ArrayUtils.subarray(this.encoded, 2, this.encoded.length)));
+                this.argsDecoded = true;
+            }
+        }
+    }
+
+    @Override
+    public Codec get(Object key) {
+        if (!"callIndex".equals(key)) {
+            this.decodeArgs();
+        }
+        return super.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        this.decodeArgs();
+        return super.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        this.decodeArgs();
+        return super.size();
+    }
+
+    @Override
+    public java.util.Set<String> keySet() {
+        this.decodeArgs();
+        return super.keySet();
+    }
+
+    @Override
+    public Collection<Codec> values() {
+        this.decodeArgs();
+        return super.values();
+    }
+
+    @Override
+    public java.util.Set<Map.Entry<String, Codec>> entrySet() {
+        this.decodeArgs();
+        return super.entrySet();
+    }
+
+    @Override
+    public void forEach(java.util.function.BiConsumer<? super String, ? super Codec> action) {
+        this.decodeArgs();
+        super.forEach(action);
     }
 
     /**
@@ -270,6 +378,17 @@ public class Method extends Struct implements Types.IMethod {
      * @param meta - The function metadata used to get the definition.
      */
     private static Types.ConstructorDef getArgsDef(Modules.FunctionMetadata meta) {
+        if (meta == null) {
+            return createArgsDef(null);
+        }
+        try {
+            return ARGS_DEFS.get(meta, () -> createArgsDef(meta));
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private static Types.ConstructorDef createArgsDef(Modules.FunctionMetadata meta) {
         Types.ConstructorDef constructorDef = new Types.ConstructorDef();
         filterOrigin(meta).stream().forEach((argumentMetadata) -> {
             Types.ConstructorCodec type = CreateType.getTypeClass(CreateType.getTypeDef(argumentMetadata.getType().toString(), null));
@@ -335,6 +454,13 @@ public class Method extends Struct implements Types.IMethod {
     }
 
 
+    @Override
+    public byte[] toU8a(boolean isBare) {
+        return this.encoded == null || isBare
+                ? super.toU8a(isBare)
+                : this.encoded.clone();
+    }
+
     /**
      * `true` if the `Origin` type is on the method (extrinsic method)
      */
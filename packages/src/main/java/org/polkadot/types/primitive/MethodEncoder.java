@@ -0,0 +1,145 @@
+package org.polkadot.types.primitive;
+
+import com.google.common.primitives.UnsignedBytes;
+import org.polkadot.common.keyring.address.AddressCodec;
+import org.polkadot.types.Codec;
+import org.polkadot.types.Types;
+import org.polkadot.types.codec.CreateType;
+import org.polkadot.types.codec.UInt;
+import org.polkadot.types.metadata.v0.Modules;
+import org.polkadot.types.type.AccountId;
+import org.polkadot.types.type.Address;
+import org.polkadot.utils.Utils;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.util.List;
+
+/**
+ * The encoder of the calls of one function, resolved from its metadata once: every argument type is parsed
+ * once, and the plain Java arguments of the common types (numbers, compact numbers, booleans, addresses,
+ * account ids and hashes) are written straight to the encoding, without creating their codecs. The
+ * other arguments (and the codecs passed as arguments) go through the codec of their type.
+ */
+public class MethodEncoder {
+
+    interface ArgEncoder {
+        void encode(Object arg, ByteArrayOutputStream output);
+    }
+
+    private final String name;
+    private final byte[] callIndex;
+    private final Modules.FunctionMetadata meta;
+    private final ArgEncoder[] encoders;
+
+    public MethodEncoder(String name, byte[] callIndex, Modules.FunctionMetadata meta) {
+        this.name = name;
+        this.callIndex = callIndex;
+        this.meta = meta;
+
+        List<Modules.FunctionArgumentMetadata> args = Method.filterOrigin(meta);
+        this.encoders = new ArgEncoder[args.size()];
+        for (int i = 0; i < args.size(); i++) {
+            this.encoders[i] = argEncoder(args.get(i).getType().toString());
+        }
+    }
+
+    /**
+     * The encoded call (call index and arguments)
+     */
+    public byte[] encode(Object... args) {
+        assert this.encoders.length == args.length : "Extrinsic " + this.name + " expects " + this.encoders.length + " arguments, got " + args.length;
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream(64);
+        output.write(this.callIndex, 0, this.callIndex.length);
+        for (int i = 0; i < args.length; i++) {
+            this.encoders[i].encode(args[i], output);
+        }
+        return output.toByteArray();
+    }
+
+    /**
+     * The call as a Method, keeping its encoding
+     */
+    public Method method(Object... args) {
+        return Method.fromEncoded(this.encode(args), this.meta);
+    }
+
+    private static ArgEncoder argEncoder(String type) {
+        Types.ConstructorCodec codec = CreateType.getTypeClass(CreateType.getTypeDef(type, null));
+        ArgEncoder fallback = (arg, output) -> write(output, codec.newInstance(arg).toU8a());
+        Class<?> codecClass = codec.getTClass();
+
+        if (type.startsWith("Compact<")) {
+            return (arg, output) -> {
+                if (isNumber(arg)) {
+                    write(output, Utils.compactToU8a(arg));
+                } else {
+                    fallback.encode(arg, output);
+                }
+            };
+        } else if (UInt.class.isAssignableFrom(codecClass)) {
+            int bitLength = ((UInt) codec.newInstance(0)).bitLength();
+            return (arg, output) -> {
+                if (isNumber(arg)) {
+                    write(output, Utils.bnToU8a(Utils.bnToBn(arg), true, false, bitLength));
+                } else {
+                    fallback.encode(arg, output);
+                }
+            };
+        } else if (codecClass == Bool.class) {
+            return (arg, output) -> {
+                if (arg instanceof Boolean) {
+                    output.write((Boolean) arg ? 1 : 0);
+                } else {
+                    fallback.encode(arg, output);
+                }
+            };
+        } else if (codecClass == Address.class || codecClass == AccountId.class) {
+            boolean prefixed = codecClass == Address.class;
+            return (arg, output) -> {
+                byte[] publicKey = accountId(arg);
+                if (publicKey == null) {
+                    fallback.encode(arg, output);
+                    return;
+                }
+                if (prefixed) {
+                    output.write(UnsignedBytes.toInt(Address.ACCOUNT_ID_PREFIX[0]));
+                }
+                write(output, publicKey);
+            };
+        } else if (H256.class.isAssignableFrom(codecClass)) {
+            return (arg, output) -> {
+                if (arg instanceof byte[] && ((byte[]) arg).length == 32) {
+                    write(output, (byte[]) arg);
+                } else {
+                    fallback.encode(arg, output);
+                }
+            };
+        }
+        return fallback;
+    }
+
+    private static boolean isNumber(Object arg) {
+        // the int codecs are numbers too, encoded through their codec
+        return arg instanceof BigInteger && !(arg instanceof Codec)
+                || arg instanceof Long || arg instanceof Integer || arg instanceof Short || arg instanceof Byte;
+    }
+
+    /**
+     * The public key of an account given as a 32 bytes key or an ss58 address, null otherwise
+     */
+    private static byte[] accountId(Object arg) {
+        if (arg instanceof byte[]) {
+            return ((byte[]) arg).length == 32 ? (byte[]) arg : null;
+        } else if (arg instanceof String && !Utils.isHex(arg)) {
+            byte[] decoded = AddressCodec.decodeAddress(arg);
+            return decoded.length == 32 ? decoded : null;
+        }
+        return null;
+    }
+
+    private static void write(ByteArrayOutputStream output, byte[] bytes) {
+        output.write(bytes, 0, bytes.length);
+    }
+}
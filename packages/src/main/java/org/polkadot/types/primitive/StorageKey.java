@@ -8,6 +8,8 @@ import org.polkadot.types.codec.U8a;
 import org.polkadot.types.metadata.v0.Modules;
 
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
 
 /**
  * A representation of a storage key (typically hashed) in the system. It can be
@@ -65,6 +67,20 @@ public class StorageKey extends Bytes {
         public void setHeadKey(StorageKey headKey) {
             this.headKey = headKey;
         }
+
+        /**
+         * Creates the keys of many entries of this function, one per element of `args` (an Object[] holding the
+         * arguments, or the single argument itself). The keys are encoded in parallel, in the order of `args`.
+         */
+        public List<StorageKey> keys(Iterable<?> args) {
+            String outputType = this.meta.getType().toString();
+            return StreamSupport.stream(args.spliterator(), true)
+                    .map(arg -> new StorageKey(
+                            this.apply(arg instanceof Object[] ? (Object[]) arg : new Object[]{arg}),
+                            this.meta,
+                            outputType))
+                    .collect(Collectors.toList());
+        }
     }
 
 
@@ -81,6 +97,13 @@ public class StorageKey extends Bytes {
         this.outputType = getType(value);
     }
 
+    private StorageKey(byte[] value, Modules.StorageFunctionMetadata meta, String outputType) {
+        super(value);
+
+        this.meta = meta;
+        this.outputType = outputType;
+    }
+
     static String getType(Object value) {
         if (value instanceof StorageKey) {
             return ((StorageKey) value).outputType;
@@ -106,7 +129,10 @@ public class StorageKey extends Bytes {
     }
 
     static Object decodeStorageKey(Object value) {
-        if (value instanceof IFunction) {
+        if (value instanceof StorageKey) {
+            // the key itself, Bytes would otherwise take the (length-prefixed) encoding of the key as the key
+            return new U8a(((StorageKey) value).toU8a(true));
+        } else if (value instanceof IFunction) {
             byte[] apply = ((StorageFunction) value).apply();
             return new U8a(apply);
         } else if (value.getClass().isArray()) {
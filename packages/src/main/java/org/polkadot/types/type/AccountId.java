@@ -1,6 +1,7 @@
 package org.polkadot.types.type;
 
 import org.polkadot.common.keyring.address.AddressCodec;
+import org.polkadot.common.keyring.address.Defaults;
 import org.polkadot.types.codec.U8a;
 import org.polkadot.types.codec.U8aFixed;
 import org.polkadot.utils.Utils;
@@ -11,6 +12,24 @@ import org.polkadot.utils.Utils;
  * just a Uint8Array wrapper with a fixed length.
  */
 public class AccountId extends U8aFixed {
+
+    /**
+     * The last ss58 encoding, reused as long as the raw bytes and the address prefix are unchanged
+     */
+    private static class Encoded {
+        final byte[] raw;
+        final byte prefix;
+        final String value;
+
+        Encoded(byte[] raw, byte prefix, String value) {
+            this.raw = raw;
+            this.prefix = prefix;
+            this.value = value;
+        }
+    }
+
+    private volatile Encoded encoded;
+
     //constructor (value: AnyU8a = new Uint8Array()) {
     public AccountId(Object value) {
         super(decodeAccountId(value), 256);
@@ -58,7 +77,13 @@ public class AccountId extends U8aFixed {
    */
     @Override
     public String toString() {
-        return AccountId.encode(this);
+        Encoded encoded = this.encoded;
+        byte prefix = Defaults.prefix;
+        if (encoded == null || encoded.raw != this.raw || encoded.prefix != prefix) {
+            encoded = new Encoded(this.raw, prefix, AccountId.encode(this));
+            this.encoded = encoded;
+        }
+        return encoded.value;
     }
 
     /**
@@ -34,7 +34,7 @@ public class Block extends Struct {
     //  constructor (value?: BlockValue | Uint8Array) {
     public Block(Object value) {
         super(new Types.ConstructorDef()
-                        .add("head", Header.class)
+                        .add("header", Header.class)
                         .add("extrinsics", Extrinsics.class)
                 , value);
     }
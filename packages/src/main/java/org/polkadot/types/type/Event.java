@@ -29,6 +29,8 @@ public class Event extends Struct {
     private static final Logger logger = LoggerFactory.getLogger(Event.class);
 
     public static final Map<String, Types.ConstructorCodec<EventData>> EventTypes = new ConcurrentHashMap<>();
+    // the same, by the (section index, method index) pair packed in an int, for the lookups from the raw index
+    private static final Map<Integer, EventData.Builder> EventTypesByIndex = new ConcurrentHashMap<>();
 
     /**
      * Wrapper for the actual data that forms part of an Event
@@ -91,6 +93,22 @@ public class Event extends Struct {
                 this.typeDef = typeDef;
             }
 
+            public List<Types.ConstructorCodec> getTypes() {
+                return types;
+            }
+
+            public List<CreateType.TypeDef> getTypeDef() {
+                return typeDef;
+            }
+
+            public String getMethod() {
+                return method;
+            }
+
+            public String getSection() {
+                return section;
+            }
+
             @Override
             public EventData newInstance(Object... values) {
                 return new EventData(types, (byte[]) values[0], typeDef, meta, section, method);
@@ -168,12 +186,22 @@ public class Event extends Struct {
                         arg -> CreateType.getTypeDef(arg.toString())
                 ).collect(Collectors.toList());
                 List<Types.ConstructorCodec> types = typeDef.stream().map(def -> CreateType.getTypeClass(def)).collect(Collectors.toList());
-                EventTypes.put(Arrays.toString(eventIndex), new EventData.Builder(types, typeDef, meta, sectionName, methodName));
+                EventData.Builder builder = new EventData.Builder(types, typeDef, meta, sectionName, methodName);
+                EventTypes.put(Arrays.toString(eventIndex), builder);
+                EventTypesByIndex.put(sectionIndex << 8 | methodIndex, builder);
             }
         }
     }
 
 
+    /**
+     * The data type of the event at the index (`[sectionIndex, methodIndex]`), null when unknown
+     */
+    public static EventData.Builder getDataType(int sectionIndex, int methodIndex) {
+        return EventTypesByIndex.get(sectionIndex << 8 | methodIndex);
+    }
+
+
     /**
      * The wrapped EventData
      */
@@ -0,0 +1,211 @@
+package org.polkadot.types.type;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.primitives.UnsignedBytes;
+import org.apache.commons.lang3.tuple.Pair;
+import org.polkadot.types.Types;
+import org.polkadot.types.codec.AbstractInt;
+import org.polkadot.types.codec.CreateType;
+import org.polkadot.types.codec.U8aFixed;
+import org.polkadot.types.primitive.Bool;
+import org.polkadot.types.primitive.Bytes;
+import org.polkadot.types.primitive.Text;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Decodes the events (`Vec<EventRecord>`, as stored in system.events) of some (section, method) only. The
+ * records are walked through raw: the event of a record is identified by its 2 bytes EventIndex, and the
+ * records of the other events are skipped over with the encoded length of their arguments, without creating
+ * their codecs. Only the matching records are decoded.
+ * <p>
+ * The lengths of the common argument types (numbers, hashes and accounts, booleans, compact numbers, bytes and
+ * text, vectors of these) are read from the encoding, the others are decoded to get their length.
+ * <p>
+ * **Example**
+ * <p>
+ * ```java
+ * EventFilter transfers = new EventFilter(Lists.newArrayList(Pair.of("balances", "Transfer")));
+ * List<EventRecord> records = transfers.decode(rawEvents);
+ * ```
+ */
+public class EventFilter {
+
+    /**
+     * The encoded length of an argument at an offset of the data
+     */
+    interface ArgLength {
+        int length(byte[] data, int offset);
+    }
+
+    /**
+     * What the filter does with the events of one index, resolved once per event type
+     */
+    private static class Resolved {
+        final boolean matches;
+        final ArgLength[] args;
+
+        Resolved(boolean matches, ArgLength[] args) {
+            this.matches = matches;
+            this.args = args;
+        }
+    }
+
+    private static final int PHASE_APPLY_EXTRINSIC = 0;
+    private static final int PHASE_FINALIZATION = 1;
+
+    private final Set<String> events = new HashSet<>();
+    // by the data type of the event, the types are created again with the metadata of a new runtime
+    private final Cache<Event.EventData.Builder, Resolved> resolved = CacheBuilder.newBuilder().weakKeys().build();
+
+    /**
+     * @param events the (section, method) of the events decoded, as in {@link Event#getSection()} and {@link Event#getMethod()}
+     */
+    public EventFilter(List<Pair<String, String>> events) {
+        for (Pair<String, String> event : events) {
+            this.events.add(event.getLeft() + "." + event.getRight());
+        }
+    }
+
+    public boolean matches(String section, String method) {
+        return this.events.contains(section + "." + method);
+    }
+
+    /**
+     * The matching records of the encoded `Vec<EventRecord>`, in order
+     */
+    public List<EventRecord> decode(byte[] records) {
+        List<EventRecord> matching = new ArrayList<>();
+        if (records == null || records.length == 0) {
+            return matching;
+        }
+
+        long[] count = compact(records, 0);
+        int offset = (int) count[0];
+        for (long i = 0; i < count[1]; i++) {
+            int start = offset;
+
+            int phase = UnsignedBytes.toInt(records[offset]);
+            if (phase == PHASE_APPLY_EXTRINSIC) {
+                offset += 1 + 4;
+            } else if (phase == PHASE_FINALIZATION) {
+                offset += 1;
+            } else {
+                throw new IllegalArgumentException("Unable to decode the phase " + phase + " of event record " + i);
+            }
+
+            int sectionIndex = UnsignedBytes.toInt(records[offset]);
+            int methodIndex = UnsignedBytes.toInt(records[offset + 1]);
+            offset += 2;
+            Resolved event = this.resolve(sectionIndex, methodIndex);
+            for (ArgLength arg : event.args) {
+                offset += arg.length(records, offset);
+            }
+
+            if (event.matches) {
+                matching.add(new EventRecord(Arrays.copyOfRange(records, start, offset)));
+            }
+        }
+        return matching;
+    }
+
+    private Resolved resolve(int sectionIndex, int methodIndex) {
+        Event.EventData.Builder dataType = Event.getDataType(sectionIndex, methodIndex);
+        if (dataType == null) {
+            // without the arguments the next records can't be found
+            throw new IllegalArgumentException("Unable to decode event for index [" + sectionIndex + ", " + methodIndex + "]");
+        }
+        try {
+            return this.resolved.get(dataType, () -> {
+                List<CreateType.TypeDef> typeDef = dataType.getTypeDef();
+                ArgLength[] args = new ArgLength[typeDef.size()];
+                for (int i = 0; i < args.length; i++) {
+                    args[i] = argLength(typeDef.get(i), dataType.getTypes().get(i));
+                }
+                return new Resolved(this.matches(dataType.getSection(), dataType.getMethod()), args);
+            });
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private static ArgLength argLength(CreateType.TypeDef typeDef, Types.ConstructorCodec codec) {
+        if (typeDef.getInfo() == CreateType.TypeDefInfo.Compact) {
+            return (data, offset) -> compactLength(data[offset]);
+        } else if (typeDef.getInfo() == CreateType.TypeDefInfo.Vector) {
+            CreateType.TypeDef sub = typeDef.getSub().get(0);
+            ArgLength item = argLength(sub, CreateType.getTypeClass(sub));
+            int itemLength = fixedLength(CreateType.getTypeClass(sub));
+            return (data, offset) -> {
+                long[] count = compact(data, offset);
+                if (itemLength > 0) {
+                    return (int) (count[0] + count[1] * itemLength);
+                }
+                int length = (int) count[0];
+                for (long i = 0; i < count[1]; i++) {
+                    length += item.length(data, offset + length);
+                }
+                return length;
+            };
+        }
+
+        Class<?> codecClass = codec.getTClass();
+        if (codecClass == Bytes.class || codecClass == Text.class) {
+            return (data, offset) -> {
+                long[] length = compact(data, offset);
+                return (int) (length[0] + length[1]);
+            };
+        }
+        int fixedLength = fixedLength(codec);
+        if (fixedLength > 0) {
+            return (data, offset) -> fixedLength;
+        }
+        return (data, offset) -> codec.newInstance(Arrays.copyOfRange(data, offset, data.length)).getEncodedLength();
+    }
+
+    /**
+     * The encoded length of the fixed size types (numbers, hashes and accounts, booleans), 0 for the others
+     */
+    private static int fixedLength(Types.ConstructorCodec codec) {
+        Class<?> codecClass = codec.getTClass();
+        if (codecClass == Bool.class) {
+            return 1;
+        } else if (AbstractInt.class.isAssignableFrom(codecClass) || U8aFixed.class.isAssignableFrom(codecClass)) {
+            return codec.newInstance(new byte[0]).getEncodedLength();
+        }
+        return 0;
+    }
+
+    private static int compactLength(byte first) {
+        int flag = UnsignedBytes.toInt(first) & 0b11;
+        if (flag == 0b00) {
+            return 1;
+        } else if (flag == 0b01) {
+            return 2;
+        } else if (flag == 0b10) {
+            return 4;
+        }
+        return 1 + (UnsignedBytes.toInt(first) >> 2) + 4;
+    }
+
+    /**
+     * The (encoded length, value) of the compact number at the offset, for lengths and counts
+     */
+    private static long[] compact(byte[] data, int offset) {
+        int length = compactLength(data[offset]);
+        // the value follows the first byte in the big-integer mode, else shares it with the mode
+        int valueStart = length > 4 ? offset + 1 : offset;
+        int valueEnd = Math.min(offset + length, valueStart + 8);
+        long value = 0;
+        for (int i = valueEnd - 1; i >= valueStart; i--) {
+            value = value << 8 | UnsignedBytes.toInt(data[i]);
+        }
+        return new long[]{length, length > 4 ? value : value >> 2};
+    }
+}
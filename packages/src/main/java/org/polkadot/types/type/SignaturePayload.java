@@ -1,12 +1,18 @@
 package org.polkadot.types.type;
 
+import com.google.common.collect.Lists;
 import org.polkadot.common.keyring.Types.KeyringPair;
 import org.polkadot.types.Types;
 import org.polkadot.types.codec.Struct;
 import org.polkadot.types.primitive.Method;
 import org.polkadot.types.rpc.RuntimeVersion;
+import org.polkadot.utils.Utils;
 import org.polkadot.utils.UtilsCrypto;
 
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
 /**
  * A signing payload for an {@link org.polkadot.type.extrinsics}. For the final encoding, it is variable length based
  * on the conetnts included
@@ -31,6 +37,76 @@ public class SignaturePayload extends Struct {
     }
 
 
+    /**
+     * Signs many extrinsics of one account against the same block hash and era: the era and block hash (the end
+     * of every payload) are encoded once, the nonce and method of every payload are written in front of them, in
+     * a buffer reused by the thread, and the payloads are signed in parallel.
+     */
+    public static class Batch {
+
+        private static final int MAX_UNHASHED = 256;
+
+        private final byte[] era;
+        private final byte[] suffix;
+
+        /**
+         * @param era the encoded era, null for an immortal extrinsic
+         * @param blockHash the hash of the block the era starts at (the genesis hash when immortal)
+         */
+        public Batch(byte[] era, Object blockHash) {
+            assert blockHash != null : "Expected a block hash to sign against";
+
+            this.era = era == null ? ExtrinsicSignature.IMMORTAL_ERA : era;
+            this.suffix = Utils.u8aConcat(Lists.newArrayList(
+                    new ExtrinsicEra(this.era).toU8a(),
+                    new Hash(blockHash).toU8a()));
+        }
+
+        /**
+         * The message signed for the method with the nonce, as {@link SignaturePayload#sign} signs it
+         */
+        public byte[] encode(long nonce, Method method) {
+            byte[] encodedNonce = Utils.compactToU8a(nonce);
+            byte[] encodedMethod = method.toU8a();
+            int length = encodedNonce.length + encodedMethod.length + this.suffix.length;
+
+            // the payload, signed as is when short enough
+            byte[] payload = new byte[length];
+            System.arraycopy(encodedNonce, 0, payload, 0, encodedNonce.length);
+            System.arraycopy(encodedMethod, 0, payload, encodedNonce.length, encodedMethod.length);
+            System.arraycopy(this.suffix, 0, payload, encodedNonce.length + encodedMethod.length, this.suffix.length);
+
+            return length > MAX_UNHASHED
+                    ? UtilsCrypto.blake2AsU8a(payload, 256)
+                    : payload;
+        }
+
+        /**
+         * Signs the extrinsic with the nonce and adds the signature to it
+         */
+        public <E extends Types.IExtrinsic> E sign(KeyringPair account, E extrinsic, long nonce) {
+            byte[] signature = account.sign(this.encode(nonce, extrinsic.getMethod()));
+            extrinsic.addSignature(account.publicKey(), signature, nonce, this.era);
+            return extrinsic;
+        }
+
+        /**
+         * Signs the extrinsics with consecutive nonces, from the given one, and adds the signatures to them
+         */
+        public void sign(KeyringPair account, List<? extends Types.IExtrinsic> extrinsics, long firstNonce) {
+            List<byte[]> messages = IntStream.range(0, extrinsics.size())
+                    .parallel()
+                    .mapToObj(i -> this.encode(firstNonce + i, extrinsics.get(i).getMethod()))
+                    .collect(Collectors.toList());
+            List<byte[]> signatures = account.signAll(messages);
+
+            byte[] signer = account.publicKey();
+            for (int i = 0; i < extrinsics.size(); i++) {
+                extrinsics.get(i).addSignature(signer, signatures.get(i), firstNonce + i, this.era);
+            }
+        }
+    }
+
     protected byte[] _signature;
 
     //constructor (value? SignaturePayloadValue | Uint8Array) {
@@ -10,6 +10,7 @@ import org.polkadot.types.codec.CodecUtils;
 import org.polkadot.types.codec.Compact;
 import org.polkadot.types.codec.Option;
 import org.polkadot.types.codec.U8a;
+import org.polkadot.types.primitive.Method;
 import org.polkadot.types.type.Event;
 import org.polkadot.types.type.ExtrinsicSignature;
 
@@ -733,6 +734,11 @@ public class Utils {
             return false;
         }
 
+        // kept as is by the structs holding it (e.g. Extrinsic), along with its encoding
+        if (object instanceof Method) {
+            return false;
+        }
+
         if (object instanceof Collection
                 || object instanceof Map) {
             return true;
@@ -1,17 +1,18 @@
 package org.polkadot.utils;
 
-import net.jpountz.xxhash.StreamingXXHash64;
+import net.jpountz.xxhash.XXHash64;
 import net.jpountz.xxhash.XXHashFactory;
 import org.apache.commons.lang3.ArrayUtils;
 import org.bouncycastle.crypto.digests.Blake2bDigest;
 import org.polkadot.utils.crypto.TweetNaCl;
 
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
 import java.math.BigInteger;
 
 public class UtilsCrypto {
 
+    // one-shot hashing, thread-safe and without any state to set up per call
+    private static final XXHash64 XXHASH64 = XXHashFactory.fastestInstance().hash64();
+
     /**
      * Creates a blake2b u8a from the input.
      * From a `Uint8Array` input, create the blake2b and return the result as a u8a with the specified `bitLength`.
@@ -60,6 +61,17 @@ public class UtilsCrypto {
         return blake2AsU8a(data, bitLength, null);
     }
 
+    /**
+     * The blake2b of `length` bytes of the input from `offset`, without copying them out (e.g. of a reused buffer)
+     */
+    public static byte[] blake2AsU8a(byte[] data, int offset, int length, int bitLength) {
+        Blake2bDigest blake2b = new Blake2bDigest((int) Math.ceil(bitLength / 8F) * 8);
+        blake2b.update(data, offset, length);
+        byte[] hash = new byte[blake2b.getDigestSize()];
+        blake2b.doFinal(hash, 0);
+        return hash;
+    }
+
 
     /**
      * Creates a xxhash64 u8a from the input.
@@ -76,20 +88,29 @@ public class UtilsCrypto {
     }
 
     public static byte[] xxhashAsU8a(byte[] data, int bitLength) {
-        int iterations = (int) Math.ceil(bitLength / 64F);
-
         //if (isReady()) {
         //          return twox(u8aToU8a(data), iterations);
         //      }
         //
         byte[] u8a = new byte[(int) Math.ceil(bitLength / 8F)];
+        xxhashAsU8a(data, 0, data.length, bitLength, u8a, 0);
+        return u8a;
+    }
+
+    /**
+     * Creates the xxhash of `length` bytes of `data` starting at `offset`, writing the `bitLength` result
+     * into `out` at `outOffset`. Like {@link #xxhashAsU8a(byte[], int)}, the 64 bits hash of every seed is
+     * written little endian, so `out` needs room for `ceil(bitLength / 64) * 8` bytes.
+     */
+    public static void xxhashAsU8a(byte[] data, int offset, int length, int bitLength, byte[] out, int outOffset) {
+        int iterations = (int) Math.ceil(bitLength / 64F);
 
         for (int seed = 0; seed < iterations; seed++) {
-            BigInteger bigInteger = xxhash64AsBn(data, seed);
-            byte[] bytes = Utils.bnToU8a(bigInteger, true, 64);
-            System.arraycopy(bytes, 0, u8a, seed * 8, 8);
+            long hash = XXHASH64.hash(data, offset, length, seed);
+            for (int i = 0; i < 8; i++) {
+                out[outOffset + seed * 8 + i] = (byte) (hash >>> (i * 8));
+            }
         }
-        return u8a;
     }
 
 
@@ -141,30 +162,7 @@ public class UtilsCrypto {
      */
     //export default function xxhash64AsValue (data: Buffer | Uint8Array | string, seed: number): number {
     public static long xxhash64AsValue(byte[] data, long seed) {
-
-        XXHashFactory factory = XXHashFactory.fastestInstance();
-        ByteArrayInputStream in = new ByteArrayInputStream(data);
-        // value you want, but always the same
-        StreamingXXHash64 xxHash64 = factory.newStreamingHash64(seed);
-
-        byte[] buf = new byte[16]; // for real-world usage, use a larger buffer, like 8192 bytes
-        for (; ; ) {
-            int read = 0;
-            try {
-                read = in.read(buf);
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-            if (read == -1) {
-                break;
-            }
-            xxHash64.update(buf, 0, read);
-        }
-        long hash = xxHash64.getValue();
-        //System.out.println("value :" + Arrays.toString(data));
-        //System.out.println("seed :" + seed);
-        //System.out.println("hash :" + Long.toHexString(hash));
-        return hash;
+        return XXHASH64.hash(data, 0, data.length, seed);
     }
 
 
@@ -0,0 +1,93 @@
+package org.polkadot.utils.crypto;
+
+import org.polkadot.utils.Utils;
+import org.polkadot.utils.UtilsCrypto;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+/**
+ * A single junction of a derivation path, `/<soft>` or `//<hard>`, with its 32-byte chain code
+ */
+public class DeriveJunction {
+
+    public static final int JUNCTION_ID_LEN = 32;
+
+    private static final Pattern RE_NUMBER = Pattern.compile("^\\d+$");
+
+    private final byte[] chainCode = new byte[JUNCTION_ID_LEN];
+    private boolean isHard = false;
+
+    /**
+     * Creates a junction from its path value, the leading `/` of a hard junction included
+     */
+    //static from (value: string): DeriveJunction {
+    public static DeriveJunction from(String value) {
+        boolean isHard = value.startsWith("/");
+        String code = isHard ? value.substring(1) : value;
+
+        DeriveJunction result = new DeriveJunction();
+        if (RE_NUMBER.matcher(code).matches()) {
+            result.soft(new BigInteger(code, 10));
+        } else {
+            result.soft(code);
+        }
+
+        return isHard ? result.harden() : result;
+    }
+
+    public byte[] getChainCode() {
+        return chainCode;
+    }
+
+    public boolean isHard() {
+        return isHard;
+    }
+
+    public boolean isSoft() {
+        return !isHard;
+    }
+
+    public DeriveJunction hard(Object value) {
+        return this.soft(value).harden();
+    }
+
+    public DeriveJunction harden() {
+        this.isHard = true;
+        return this;
+    }
+
+    public DeriveJunction soft(Object value) {
+        if (value instanceof BigInteger || value instanceof Number) {
+            BigInteger bn = value instanceof BigInteger ? (BigInteger) value : BigInteger.valueOf(((Number) value).longValue());
+            return this.soft(Utils.bnToU8a(bn, true, 64));
+        } else if (value instanceof String) {
+            return Utils.isHex(value)
+                    ? this.soft(Utils.hexToU8a((String) value))
+                    : this.soft(Utils.compactAddLength(Utils.stringToU8a((String) value)));
+        }
+
+        byte[] bytes = (byte[]) value;
+        if (bytes.length > JUNCTION_ID_LEN) {
+            System.arraycopy(UtilsCrypto.blake2AsU8a(bytes), 0, this.chainCode, 0, JUNCTION_ID_LEN);
+        } else {
+            Arrays.fill(this.chainCode, (byte) 0);
+            System.arraycopy(bytes, 0, this.chainCode, 0, bytes.length);
+        }
+        return this;
+    }
+
+    public DeriveJunction soften() {
+        this.isHard = false;
+        return this;
+    }
+
+    /**
+     * The junction as it appears in a path, with the chain code in hex, used as a stable cache key
+     */
+    @Override
+    public String toString() {
+        return (this.isHard ? "//" : "/") + Utils.u8aToHex(this.chainCode);
+    }
+}
@@ -0,0 +1,124 @@
+package org.polkadot.utils.crypto;
+
+import com.google.common.collect.Lists;
+import org.polkadot.utils.Utils;
+import org.polkadot.utils.UtilsCrypto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Secret URI (SURI) parsing and hierarchical deterministic key derivation (HDKD),
+ * `<secret>/<soft-key>//<hard-key>///<password>`
+ */
+public class Key {
+
+    private static final Pattern RE_CAPTURE = Pattern.compile("^(\\w+( \\w+)*)((//?[^/]+)*)(///(.*))?$");
+    private static final Pattern RE_JUNCTION = Pattern.compile("/(/?)([^/]+)");
+
+    private static final byte[] ED25519_HDKD = Utils.compactAddLength(Utils.stringToU8a("Ed25519HDKD"));
+
+    public static class ExtractResult {
+        String derivePath;
+        String password;
+        List<DeriveJunction> path;
+        String phrase;
+
+        public String getDerivePath() {
+            return derivePath;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public List<DeriveJunction> getPath() {
+            return path;
+        }
+
+        public String getPhrase() {
+            return phrase;
+        }
+    }
+
+    /**
+     * Extracts the phrase, path and password from a SURI format for specifying secret keys
+     */
+    //export default function keyExtractSuri (suri: string): ExtractResult {
+    public static ExtractResult keyExtractSuri(String suri) {
+        Matcher matcher = RE_CAPTURE.matcher(suri);
+        if (!matcher.matches()) {
+            throw new RuntimeException("Unable to match provided value to a secret URI");
+        }
+
+        ExtractResult result = new ExtractResult();
+        result.phrase = matcher.group(1);
+        result.derivePath = matcher.group(3);
+        result.password = matcher.group(6);
+        result.path = keyExtractPath(result.derivePath);
+        return result;
+    }
+
+    /**
+     * Extracts the junctions of a derivation path, `/soft` and `//hard` possibly mixed
+     */
+    //export default function keyExtractPath (derivePath: string): ExtractResult {
+    public static List<DeriveJunction> keyExtractPath(String derivePath) {
+        List<DeriveJunction> path = new ArrayList<>();
+        StringBuilder constructed = new StringBuilder();
+
+        Matcher matcher = RE_JUNCTION.matcher(derivePath);
+        while (matcher.find()) {
+            String value = matcher.group(0);
+            constructed.append(value);
+            path.add(DeriveJunction.from(value.substring(1)));
+        }
+
+        if (!constructed.toString().equals(derivePath)) {
+            throw new RuntimeException("Re-constructed path \"" + constructed + "\" does not match input");
+        }
+        return path;
+    }
+
+    /**
+     * Derives an ed25519 child seed, only hard junctions are supported
+     */
+    //export default function keyHdkdEd25519 (keypair: Keypair, { chainCode, isHard }: DeriveJunction): Keypair {
+    public static byte[] keyHdkdEd25519(byte[] seed, DeriveJunction junction) {
+        if (!junction.isHard()) {
+            throw new RuntimeException("A soft key was found in the path (and is unsupported)");
+        }
+
+        return UtilsCrypto.blake2AsU8a(Utils.u8aConcat(Lists.newArrayList(ED25519_HDKD, seed, junction.getChainCode())), 256);
+    }
+
+    //export default function keyHdkdSr25519 (keypair: Keypair, { chainCode, isSoft }: DeriveJunction): Keypair {
+    public static Types.Keypair keyHdkdSr25519(Types.Keypair keypair, DeriveJunction junction) {
+        return junction.isSoft()
+                ? Schnorrkel.schnorrkelDeriveSoft(keypair, junction.getChainCode())
+                : Schnorrkel.schnorrkelDeriveHard(keypair, junction.getChainCode());
+    }
+
+    /**
+     * Derives the keypair at the end of the path, starting from the seed.
+     * ed25519 derives on the seed (the secretKey here is the expanded key, not the seed), sr25519 on the keypair.
+     */
+    //export default function keyFromPath (pair: Keypair, path: Array<DeriveJunction>, type: KeypairType): Keypair {
+    public static Types.Keypair keyFromPath(byte[] seed, List<DeriveJunction> path, String type) {
+        if (Types.KeypairType_SR.equals(type)) {
+            Types.Keypair keypair = Schnorrkel.schnorrkelKeypairFromSeed(seed);
+            for (DeriveJunction junction : path) {
+                keypair = keyHdkdSr25519(keypair, junction);
+            }
+            return keypair;
+        }
+
+        byte[] derived = seed;
+        for (DeriveJunction junction : path) {
+            derived = keyHdkdEd25519(derived, junction);
+        }
+        return Nacl.naclKeypairFromSeed(derived);
+    }
+}
@@ -0,0 +1,65 @@
+package org.polkadot.utils.crypto;
+
+import org.bitcoinj.crypto.MnemonicCode;
+import org.bitcoinj.crypto.MnemonicException;
+import org.bouncycastle.crypto.digests.SHA512Digest;
+import org.bouncycastle.crypto.generators.PKCS5S2ParametersGenerator;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.polkadot.utils.Utils;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class Mnemonic {
+
+    private static List<String> toWords(String mnemonic) {
+        return Arrays.asList(mnemonic.trim().split("\\s+"));
+    }
+
+    /**
+     * Converts a BIP39 mnemonic to its entropy, checking the words and the checksum
+     */
+    public static byte[] mnemonicToEntropy(String mnemonic) {
+        try {
+            return MnemonicCode.INSTANCE.toEntropy(toWords(mnemonic));
+        } catch (MnemonicException e) {
+            throw new RuntimeException("Invalid bip39 mnemonic specified", e);
+        }
+    }
+
+    /**
+     * Validates a mnemonic input using BIP39.
+     */
+    //export default function mnemonicValidate (mnemonic: string): boolean {
+    public static boolean mnemonicValidate(String mnemonic) {
+        try {
+            MnemonicCode.INSTANCE.check(toWords(mnemonic));
+            return true;
+        } catch (MnemonicException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Creates a valid mini secret (seed) from a mnemonic input, as used by substrate (subkey).
+     * The pbkdf2 is applied over the entropy, not the mnemonic itself as in the BIP39 seed.
+     */
+    //export default function toMiniSecret (mnemonic: string, password: string = ''): Uint8Array {
+    //    const entropy = mnemonicToEntropy(mnemonic);
+    //    const salt = stringToU8a(`mnemonic${password}`);
+    //    return pbkdf2Sync(entropy, salt, 2048, 64, 'sha512').slice(0, 32);
+    //}
+    public static byte[] mnemonicToMiniSecret(String mnemonic, String password) {
+        byte[] entropy = mnemonicToEntropy(mnemonic);
+        byte[] salt = Utils.stringToU8a("mnemonic" + (password == null ? "" : password));
+
+        PKCS5S2ParametersGenerator generator = new PKCS5S2ParametersGenerator(new SHA512Digest());
+        generator.init(entropy, salt, 2048);
+        byte[] key = ((KeyParameter) generator.generateDerivedParameters(512)).getKey();
+
+        byte[] seed = Arrays.copyOfRange(key, 0, 32);
+        Arrays.fill(key, (byte) 0);
+        Arrays.fill(entropy, (byte) 0);
+        return seed;
+    }
+}
@@ -1,16 +1,28 @@
 package org.polkadot.utils.crypto;
 
-import org.polkadot.utils.Utils;
+import org.polkadot.utils.UtilsCrypto;
 import net.i2p.crypto.eddsa.*;
 import net.i2p.crypto.eddsa.spec.*;
 
 import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
 import java.security.PublicKey;
 import java.security.Signature;
 
 public class Nacl {
 
+    private static final EdDSAParameterSpec ED_25519 = EdDSANamedCurveTable.getByName(EdDSANamedCurveTable.ED_25519);
+
+    // EdDSAEngine keeps its digest between calls, one per thread as it is not thread-safe
+    private static final ThreadLocal<EdDSAEngine> ENGINE = ThreadLocal.withInitial(() -> {
+        try {
+            return new EdDSAEngine(MessageDigest.getInstance(ED_25519.getHashAlgorithm()));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
     /**
      * Decrypts a message using the supplied secretKey and nonce
      * Returns an decrypted message, using the `secret` and `nonce`.
@@ -24,7 +36,7 @@ public class Nacl {
     //    return nacl.secretbox.open(encrypted, nonce, secret) || null;
     //}
     public static byte[] naclDecrypt(byte[] encrypted, byte[] nonce, byte[] secret) {
-        return TweetNaCl.secretbox_open(encrypted, nonce, secret);
+        return SecretBox.open(encrypted, nonce, secret);
     }
 
 
@@ -43,12 +55,12 @@ public class Nacl {
 //};
 //export default function naclEncrypt (message: Uint8Array, secret: Uint8Array, nonce: Uint8Array = randomAsU8a(24)): Encrypted {
     public static Encrypted naclEncrypt(byte[] message, byte[] secret) {
-        return naclEncrypt(message, secret, Utils.randomAsU8a(24));
+        return naclEncrypt(message, secret, UtilsCrypto.randomAsU8a(24));
     }
 
     public static Encrypted naclEncrypt(byte[] message, byte[] secret, byte[] nonce) {
         Encrypted result = new Encrypted();
-        result.encrypted = TweetNaCl.secretbox(message, nonce, secret);
+        result.encrypted = SecretBox.seal(message, nonce, secret);
         result.nonce = nonce;
         return result;
     }
@@ -90,8 +102,7 @@ public class Nacl {
     //    return nacl.sign.keyPair.fromSeed(seed);
     //}
     public static Types.Keypair naclKeypairFromSeed(byte[] seed) {
-        EdDSAParameterSpec spec = EdDSANamedCurveTable.getByName(EdDSANamedCurveTable.ED_25519);
-        EdDSAPrivateKeySpec privKey = new EdDSAPrivateKeySpec(seed, spec);
+        EdDSAPrivateKeySpec privKey = new EdDSAPrivateKeySpec(seed, ED_25519);
         byte[] priv = privKey.getH();
         byte[] pub = privKey.getA().toByteArray();
         return new Types.Keypair(pub, priv);
@@ -116,10 +127,9 @@ public class Nacl {
     //}
     public static byte[] naclSign(byte[] message, final Types.Keypair keypair) {
         try {
-            EdDSAParameterSpec spec = EdDSANamedCurveTable.getByName(EdDSANamedCurveTable.ED_25519);
-            Signature sgr = new EdDSAEngine(MessageDigest.getInstance(spec.getHashAlgorithm()));
+            Signature sgr = ENGINE.get();
 
-            EdDSAPrivateKeySpec edPrivateKey = new EdDSAPrivateKeySpec(spec, keypair.secretKey);
+            EdDSAPrivateKeySpec edPrivateKey = new EdDSAPrivateKeySpec(ED_25519, keypair.secretKey);
             PrivateKey privateKey = new EdDSAPrivateKey(edPrivateKey);
             sgr.initSign(privateKey);
             sgr.update(message);
@@ -147,10 +157,9 @@ public class Nacl {
     //}
     public static boolean naclVerify(byte[] message, byte[] signature, byte[] publicKey) {
         try {
-            EdDSAParameterSpec spec = EdDSANamedCurveTable.getByName(EdDSANamedCurveTable.ED_25519);
-            Signature sgr = new EdDSAEngine(MessageDigest.getInstance(spec.getHashAlgorithm()));
+            Signature sgr = ENGINE.get();
 
-            EdDSAPublicKeySpec edPublicKey = new EdDSAPublicKeySpec(publicKey, spec);
+            EdDSAPublicKeySpec edPublicKey = new EdDSAPublicKeySpec(publicKey, ED_25519);
             PublicKey pubKey = new EdDSAPublicKey(edPublicKey);
             sgr.initVerify(pubKey);
             sgr.update(message);
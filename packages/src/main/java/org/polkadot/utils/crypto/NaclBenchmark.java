@@ -0,0 +1,54 @@
+package org.polkadot.utils.crypto;
+
+import java.util.Random;
+
+public class NaclBenchmark
+{
+	private static final int WARMUP = 20000;
+	private static final int ITERATIONS = 100000;
+
+	public static void main(String[] args) {
+		new NaclBenchmark().run();
+	}
+
+	private void run()
+	{
+		Random random = new Random(0);
+		byte[] secret = new byte[SecretBox.KEY_BYTES];
+		byte[] nonce = new byte[SecretBox.NONCE_BYTES];
+		random.nextBytes(secret);
+		random.nextBytes(nonce);
+
+		// the size of a pkcs8 encoded keyring pair
+		for(int length : new int[] { 117, 1024, 16384 }) {
+			byte[] message = new byte[length];
+			random.nextBytes(message);
+			byte[] encrypted = SecretBox.seal(message, nonce, secret);
+			int iterations = Math.max(1000, ITERATIONS * 117 / length);
+
+			measure("TweetNaCl.secretbox      " + length, iterations, () -> TweetNaCl.secretbox(message, nonce, secret));
+			measure("SecretBox.seal           " + length, iterations, () -> SecretBox.seal(message, nonce, secret));
+			measure("TweetNaCl.secretbox_open " + length, iterations, () -> TweetNaCl.secretbox_open(encrypted, nonce, secret));
+			measure("SecretBox.open           " + length, iterations, () -> SecretBox.open(encrypted, nonce, secret));
+		}
+
+		byte[] message = { 0x61, 0x62, 0x63, 0x64 };
+		Types.Keypair keyPair = Nacl.naclKeypairFromSeed("12345678901234567890123456789012".getBytes());
+		byte[] signature = Nacl.naclSign(message, keyPair);
+		measure("Nacl.naclSign               ", ITERATIONS / 20, () -> Nacl.naclSign(message, keyPair));
+		measure("Nacl.naclVerify             ", ITERATIONS / 20, () -> Nacl.naclVerify(message, signature, keyPair.publicKey));
+	}
+
+	private void measure(String name, int iterations, Runnable task)
+	{
+		for(int i = 0; i < WARMUP; ++i) {
+			task.run();
+		}
+		long start = System.nanoTime();
+		for(int i = 0; i < iterations; ++i) {
+			task.run();
+		}
+		long elapsed = System.nanoTime() - start;
+		System.out.println(name + ": " + (elapsed / iterations) + " ns/op");
+	}
+}
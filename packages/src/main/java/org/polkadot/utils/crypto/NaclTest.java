@@ -1,5 +1,6 @@
 package org.polkadot.utils.crypto;
 
+import java.util.Arrays;
 import java.util.Random;
 
 public class NaclTest
@@ -12,6 +13,7 @@ public class NaclTest
 	{
 		testNaclEncrypt();
 		testNaclDecrypt();
+		testSecretBoxAgainstTweetNaCl();
 		testSign();
 		testSignAndVerifyValid();
 		testSignAndVerifyInvalid();
@@ -46,6 +48,27 @@ public class NaclTest
 		);
 	}
 
+	private void testSecretBoxAgainstTweetNaCl()
+	{
+		Random random = new Random(0);
+		for(int length = 0; length < 1024; ++length) {
+			byte[] message = new byte[length];
+			byte[] secret = new byte[SecretBox.KEY_BYTES];
+			byte[] nonce = new byte[SecretBox.NONCE_BYTES];
+			random.nextBytes(message);
+			random.nextBytes(secret);
+			random.nextBytes(nonce);
+
+			byte[] expected = TweetNaCl.secretbox(message, nonce, secret);
+			byte[] encrypted = SecretBox.seal(message, nonce, secret);
+			if(! Arrays.equals(expected, encrypted) || ! Arrays.equals(message, SecretBox.open(encrypted, nonce, secret))) {
+				System.out.println("testSecretBoxAgainstTweetNaCl FAIL length=" + length + "\n");
+				return;
+			}
+		}
+		System.out.println("testSecretBoxAgainstTweetNaCl OK\n");
+	}
+
 	private void testSign()
 	{
 		byte[] message = { 0x61, 0x62, 0x63, 0x64 };
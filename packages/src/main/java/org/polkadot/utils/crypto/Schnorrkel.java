@@ -66,4 +66,40 @@ public class Schnorrkel {
     public static boolean schnorrkelVerify(byte[] message, byte[] signature, byte[] publicKey) {
         return createSR25591().sr25519_verify(signature, message, message.length, publicKey);
     }
+
+    private static byte[] fromKeyPair(Types.Keypair keypair)
+    {
+        byte[] kp = new byte[ISR25591.SR25519_KEYPAIR_SIZE];
+        System.arraycopy(keypair.getSecretKey(), 0, kp, 0, ISR25591.SR25519_SECRET_SIZE);
+        System.arraycopy(keypair.getPublicKey(), 0, kp, ISR25591.SR25519_SECRET_SIZE, ISR25591.SR25519_PUBLIC_SIZE);
+        return kp;
+    }
+
+    /**
+     * Returns the hard derived keypair of the supplied pair, using the chain code
+     */
+    //export default function schnorrkelDeriveHard (keypair: Keypair, chainCode: Uint8Array): Keypair {
+    public static Types.Keypair schnorrkelDeriveHard(Types.Keypair keypair, byte[] chainCode) {
+        byte[] kp = new byte[ISR25591.SR25519_KEYPAIR_SIZE];
+        byte[] pair = fromKeyPair(keypair);
+        createSR25591().sr25519_derive_keypair_hard(kp, pair, chainCode);
+        Types.Keypair derived = toKeyPair(kp);
+        Arrays.fill(pair, (byte) 0);
+        Arrays.fill(kp, (byte) 0);
+        return derived;
+    }
+
+    /**
+     * Returns the soft derived keypair of the supplied pair, using the chain code
+     */
+    //export default function schnorrkelDeriveSoft (keypair: Keypair, chainCode: Uint8Array): Keypair {
+    public static Types.Keypair schnorrkelDeriveSoft(Types.Keypair keypair, byte[] chainCode) {
+        byte[] kp = new byte[ISR25591.SR25519_KEYPAIR_SIZE];
+        byte[] pair = fromKeyPair(keypair);
+        createSR25591().sr25519_derive_keypair_soft(kp, pair, chainCode);
+        Types.Keypair derived = toKeyPair(kp);
+        Arrays.fill(pair, (byte) 0);
+        Arrays.fill(kp, (byte) 0);
+        return derived;
+    }
 }
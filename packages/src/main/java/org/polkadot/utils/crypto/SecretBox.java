@@ -0,0 +1,363 @@
+package org.polkadot.utils.crypto;
+
+/**
+ * xsalsa20-poly1305 secretbox, wire compatible with `TweetNaCl.secretbox` / `TweetNaCl.secretbox_open`
+ * (output is `tag(16) + ciphertext`).
+ * Unlike the size-oriented TweetNaCl port, the salsa20 rounds work on local int words, poly1305 uses
+ * 26-bit limbs in longs instead of 17 byte-sized limbs, and all the scratch buffers are kept per thread,
+ * so the only allocation per call is the returned array.
+ */
+public final class SecretBox {
+
+    public static final int KEY_BYTES = 32;
+    public static final int NONCE_BYTES = 24;
+    public static final int OVERHEAD_BYTES = 16;
+
+    private static final int SIGMA_0 = 0x61707865;
+    private static final int SIGMA_1 = 0x3320646e;
+    private static final int SIGMA_2 = 0x79622d32;
+    private static final int SIGMA_3 = 0x6b206574;
+
+    private static final long MASK_26 = 0x3ffffff;
+    private static final long MASK_32 = 0xffffffffL;
+
+    private static final ThreadLocal<SecretBox> SCRATCH = ThreadLocal.withInitial(SecretBox::new);
+
+    private final int[] input = new int[16];
+    private final int[] output = new int[16];
+    private final byte[] keystream = new byte[64];
+    private final byte[] polyKey = new byte[32];
+    private final byte[] tag = new byte[16];
+    private final byte[] last = new byte[16];
+
+    private SecretBox() {
+    }
+
+    /**
+     * Encrypts and authenticates the message, returns `tag + ciphertext`
+     */
+    public static byte[] seal(byte[] message, byte[] nonce, byte[] key) {
+        byte[] box = new byte[OVERHEAD_BYTES + message.length];
+        SCRATCH.get().seal(message, nonce, key, box);
+        return box;
+    }
+
+    /**
+     * Verifies and decrypts a `tag + ciphertext` box
+     *
+     * @throws IllegalStateException when the box is too small or does not authenticate
+     */
+    public static byte[] open(byte[] box, byte[] nonce, byte[] key) {
+        if (box.length < OVERHEAD_BYTES) {
+            throw new IllegalStateException("Cipher too small!");
+        }
+        byte[] message = new byte[box.length - OVERHEAD_BYTES];
+        if (!SCRATCH.get().open(box, nonce, key, message)) {
+            throw new IllegalStateException("Invalid encryption!");
+        }
+        return message;
+    }
+
+    private void seal(byte[] message, byte[] nonce, byte[] key, byte[] box) {
+        setup(nonce, key);
+        xor(message, 0, box, OVERHEAD_BYTES, message.length);
+        poly1305(box, OVERHEAD_BYTES, message.length, this.polyKey, this.tag);
+        System.arraycopy(this.tag, 0, box, 0, OVERHEAD_BYTES);
+    }
+
+    private boolean open(byte[] box, byte[] nonce, byte[] key, byte[] message) {
+        setup(nonce, key);
+        poly1305(box, OVERHEAD_BYTES, message.length, this.polyKey, this.tag);
+
+        int diff = 0;
+        for (int i = 0; i < OVERHEAD_BYTES; i++) {
+            diff |= box[i] ^ this.tag[i];
+        }
+        if (diff != 0) {
+            return false;
+        }
+
+        xor(box, OVERHEAD_BYTES, message, 0, message.length);
+        return true;
+    }
+
+    /**
+     * Derives the xsalsa20 subkey (hsalsa20 over the first 16 nonce bytes), loads the salsa20 input with
+     * the remaining 8 nonce bytes and generates block 0, whose first 32 bytes are the poly1305 key
+     */
+    private void setup(byte[] nonce, byte[] key) {
+        int[] in = this.input;
+        in[0] = SIGMA_0;
+        in[1] = ld32(key, 0);
+        in[2] = ld32(key, 4);
+        in[3] = ld32(key, 8);
+        in[4] = ld32(key, 12);
+        in[5] = SIGMA_1;
+        in[6] = ld32(nonce, 0);
+        in[7] = ld32(nonce, 4);
+        in[8] = ld32(nonce, 8);
+        in[9] = ld32(nonce, 12);
+        in[10] = SIGMA_2;
+        in[11] = ld32(key, 16);
+        in[12] = ld32(key, 20);
+        in[13] = ld32(key, 24);
+        in[14] = ld32(key, 28);
+        in[15] = SIGMA_3;
+
+        int[] out = this.output;
+        rounds(in, out);
+        // hsalsa20 keeps the diagonal and the nonce words, without the feed-forward
+        int k0 = out[0], k1 = out[5], k2 = out[10], k3 = out[15];
+        int k4 = out[6], k5 = out[7], k6 = out[8], k7 = out[9];
+
+        in[1] = k0;
+        in[2] = k1;
+        in[3] = k2;
+        in[4] = k3;
+        in[6] = ld32(nonce, 16);
+        in[7] = ld32(nonce, 20);
+        in[8] = 0;
+        in[9] = 0;
+        in[11] = k4;
+        in[12] = k5;
+        in[13] = k6;
+        in[14] = k7;
+
+        block();
+        System.arraycopy(this.keystream, 0, this.polyKey, 0, 32);
+    }
+
+    /**
+     * XORs len bytes with the keystream starting at offset 32 of block 0 (already generated by setup)
+     */
+    private void xor(byte[] src, int srcOff, byte[] dst, int dstOff, int len) {
+        byte[] ks = this.keystream;
+        int n = Math.min(32, len);
+        for (int i = 0; i < n; i++) {
+            dst[dstOff + i] = (byte) (src[srcOff + i] ^ ks[32 + i]);
+        }
+
+        int pos = n;
+        while (pos < len) {
+            // 64-bit block counter in words 8 and 9
+            if (++this.input[8] == 0) {
+                ++this.input[9];
+            }
+            block();
+            n = Math.min(64, len - pos);
+            for (int i = 0; i < n; i++) {
+                dst[dstOff + pos + i] = (byte) (src[srcOff + pos + i] ^ ks[i]);
+            }
+            pos += n;
+        }
+    }
+
+    private void block() {
+        int[] in = this.input;
+        int[] out = this.output;
+        rounds(in, out);
+
+        byte[] ks = this.keystream;
+        for (int i = 0; i < 16; i++) {
+            st32(ks, i << 2, out[i] + in[i]);
+        }
+    }
+
+    private static void rounds(int[] in, int[] out) {
+        int x0 = in[0], x1 = in[1], x2 = in[2], x3 = in[3];
+        int x4 = in[4], x5 = in[5], x6 = in[6], x7 = in[7];
+        int x8 = in[8], x9 = in[9], x10 = in[10], x11 = in[11];
+        int x12 = in[12], x13 = in[13], x14 = in[14], x15 = in[15];
+
+        for (int i = 0; i < 10; i++) {
+            // columns
+            x4 ^= Integer.rotateLeft(x0 + x12, 7);
+            x8 ^= Integer.rotateLeft(x4 + x0, 9);
+            x12 ^= Integer.rotateLeft(x8 + x4, 13);
+            x0 ^= Integer.rotateLeft(x12 + x8, 18);
+            x9 ^= Integer.rotateLeft(x5 + x1, 7);
+            x13 ^= Integer.rotateLeft(x9 + x5, 9);
+            x1 ^= Integer.rotateLeft(x13 + x9, 13);
+            x5 ^= Integer.rotateLeft(x1 + x13, 18);
+            x14 ^= Integer.rotateLeft(x10 + x6, 7);
+            x2 ^= Integer.rotateLeft(x14 + x10, 9);
+            x6 ^= Integer.rotateLeft(x2 + x14, 13);
+            x10 ^= Integer.rotateLeft(x6 + x2, 18);
+            x3 ^= Integer.rotateLeft(x15 + x11, 7);
+            x7 ^= Integer.rotateLeft(x3 + x15, 9);
+            x11 ^= Integer.rotateLeft(x7 + x3, 13);
+            x15 ^= Integer.rotateLeft(x11 + x7, 18);
+            // rows
+            x1 ^= Integer.rotateLeft(x0 + x3, 7);
+            x2 ^= Integer.rotateLeft(x1 + x0, 9);
+            x3 ^= Integer.rotateLeft(x2 + x1, 13);
+            x0 ^= Integer.rotateLeft(x3 + x2, 18);
+            x6 ^= Integer.rotateLeft(x5 + x4, 7);
+            x7 ^= Integer.rotateLeft(x6 + x5, 9);
+            x4 ^= Integer.rotateLeft(x7 + x6, 13);
+            x5 ^= Integer.rotateLeft(x4 + x7, 18);
+            x11 ^= Integer.rotateLeft(x10 + x9, 7);
+            x8 ^= Integer.rotateLeft(x11 + x10, 9);
+            x9 ^= Integer.rotateLeft(x8 + x11, 13);
+            x10 ^= Integer.rotateLeft(x9 + x8, 18);
+            x12 ^= Integer.rotateLeft(x15 + x14, 7);
+            x13 ^= Integer.rotateLeft(x12 + x15, 9);
+            x14 ^= Integer.rotateLeft(x13 + x12, 13);
+            x15 ^= Integer.rotateLeft(x14 + x13, 18);
+        }
+
+        out[0] = x0;
+        out[1] = x1;
+        out[2] = x2;
+        out[3] = x3;
+        out[4] = x4;
+        out[5] = x5;
+        out[6] = x6;
+        out[7] = x7;
+        out[8] = x8;
+        out[9] = x9;
+        out[10] = x10;
+        out[11] = x11;
+        out[12] = x12;
+        out[13] = x13;
+        out[14] = x14;
+        out[15] = x15;
+    }
+
+    private void poly1305(byte[] m, int off, int len, byte[] key, byte[] out) {
+        long r0 = ld32u(key, 0) & 0x3ffffff;
+        long r1 = (ld32u(key, 3) >>> 2) & 0x3ffff03;
+        long r2 = (ld32u(key, 6) >>> 4) & 0x3ffc0ff;
+        long r3 = (ld32u(key, 9) >>> 6) & 0x3f03fff;
+        long r4 = (ld32u(key, 12) >>> 8) & 0x00fffff;
+
+        long s1 = r1 * 5, s2 = r2 * 5, s3 = r3 * 5, s4 = r4 * 5;
+        long h0 = 0, h1 = 0, h2 = 0, h3 = 0, h4 = 0;
+
+        byte[] b = m;
+        int pos = off;
+        int end = off + len;
+        long hibit = 1L << 24;
+        while (pos < end) {
+            if (end - pos < 16) {
+                // pad the final partial block with a single 1 byte, no high bit
+                byte[] padded = this.last;
+                int n = end - pos;
+                System.arraycopy(m, pos, padded, 0, n);
+                padded[n] = 1;
+                for (int i = n + 1; i < 16; i++) {
+                    padded[i] = 0;
+                }
+                b = padded;
+                pos = 0;
+                end = 16;
+                hibit = 0;
+            }
+
+            h0 += ld32u(b, pos) & MASK_26;
+            h1 += (ld32u(b, pos + 3) >>> 2) & MASK_26;
+            h2 += (ld32u(b, pos + 6) >>> 4) & MASK_26;
+            h3 += (ld32u(b, pos + 9) >>> 6) & MASK_26;
+            h4 += (ld32u(b, pos + 12) >>> 8) | hibit;
+
+            long d0 = h0 * r0 + h1 * s4 + h2 * s3 + h3 * s2 + h4 * s1;
+            long d1 = h0 * r1 + h1 * r0 + h2 * s4 + h3 * s3 + h4 * s2;
+            long d2 = h0 * r2 + h1 * r1 + h2 * r0 + h3 * s4 + h4 * s3;
+            long d3 = h0 * r3 + h1 * r2 + h2 * r1 + h3 * r0 + h4 * s4;
+            long d4 = h0 * r4 + h1 * r3 + h2 * r2 + h3 * r1 + h4 * r0;
+
+            long c = d0 >>> 26;
+            h0 = d0 & MASK_26;
+            d1 += c;
+            c = d1 >>> 26;
+            h1 = d1 & MASK_26;
+            d2 += c;
+            c = d2 >>> 26;
+            h2 = d2 & MASK_26;
+            d3 += c;
+            c = d3 >>> 26;
+            h3 = d3 & MASK_26;
+            d4 += c;
+            c = d4 >>> 26;
+            h4 = d4 & MASK_26;
+            h0 += c * 5;
+            c = h0 >>> 26;
+            h0 &= MASK_26;
+            h1 += c;
+
+            pos += 16;
+        }
+
+        // full carry
+        long c = h1 >>> 26;
+        h1 &= MASK_26;
+        h2 += c;
+        c = h2 >>> 26;
+        h2 &= MASK_26;
+        h3 += c;
+        c = h3 >>> 26;
+        h3 &= MASK_26;
+        h4 += c;
+        c = h4 >>> 26;
+        h4 &= MASK_26;
+        h0 += c * 5;
+        c = h0 >>> 26;
+        h0 &= MASK_26;
+        h1 += c;
+
+        // compute h - p and select it when h >= p
+        long g0 = h0 + 5;
+        c = g0 >>> 26;
+        g0 &= MASK_26;
+        long g1 = h1 + c;
+        c = g1 >>> 26;
+        g1 &= MASK_26;
+        long g2 = h2 + c;
+        c = g2 >>> 26;
+        g2 &= MASK_26;
+        long g3 = h3 + c;
+        c = g3 >>> 26;
+        g3 &= MASK_26;
+        long g4 = h4 + c - (1L << 26);
+
+        long mask = (g4 >>> 63) - 1;
+        h0 = (h0 & ~mask) | (g0 & mask);
+        h1 = (h1 & ~mask) | (g1 & mask);
+        h2 = (h2 & ~mask) | (g2 & mask);
+        h3 = (h3 & ~mask) | (g3 & mask);
+        h4 = (h4 & ~mask) | (g4 & mask);
+
+        // h = h % 2^128, then add the pad s
+        h0 = (h0 | (h1 << 26)) & MASK_32;
+        h1 = ((h1 >>> 6) | (h2 << 20)) & MASK_32;
+        h2 = ((h2 >>> 12) | (h3 << 14)) & MASK_32;
+        h3 = ((h3 >>> 18) | (h4 << 8)) & MASK_32;
+
+        long f = h0 + ld32u(key, 16);
+        st32(out, 0, (int) f);
+        f = h1 + ld32u(key, 20) + (f >>> 32);
+        st32(out, 4, (int) f);
+        f = h2 + ld32u(key, 24) + (f >>> 32);
+        st32(out, 8, (int) f);
+        f = h3 + ld32u(key, 28) + (f >>> 32);
+        st32(out, 12, (int) f);
+    }
+
+    private static int ld32(byte[] x, int off) {
+        return (x[off] & 0xff)
+                | (x[off + 1] & 0xff) << 8
+                | (x[off + 2] & 0xff) << 16
+                | (x[off + 3] & 0xff) << 24;
+    }
+
+    private static long ld32u(byte[] x, int off) {
+        return ld32(x, off) & MASK_32;
+    }
+
+    private static void st32(byte[] x, int off, int u) {
+        x[off] = (byte) u;
+        x[off + 1] = (byte) (u >>> 8);
+        x[off + 2] = (byte) (u >>> 16);
+        x[off + 3] = (byte) (u >>> 24);
+    }
+}
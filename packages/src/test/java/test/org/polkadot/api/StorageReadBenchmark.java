@@ -0,0 +1,73 @@
+package test.org.polkadot.api;
+
+import com.onehilltech.promises.Promise;
+import org.polkadot.api.Types.QueryableStorageFunction;
+import org.polkadot.api.promise.ApiPromise;
+import org.polkadot.direct.IRpcFunction;
+import org.polkadot.rpc.provider.mock.MockProvider;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares single-shot storage reads against the mock node: the previous subscribe, first notification and
+ * unsubscribe sequence, against the direct state_getStorage read now used by `api.query` without a callback.
+ */
+public class StorageReadBenchmark {
+
+    private static final long LATENCY = 2;
+    private static final int WARMUP = 200;
+    private static final int READS = 1000;
+
+    public static void main(String[] args) throws Exception {
+        MockProvider provider = new MockProvider(LATENCY);
+        ApiPromise api = await(ApiPromise.create(provider));
+
+        QueryableStorageFunction<Promise> now = api.query().section("timestamp").function("now");
+        provider.setStorage(now.key(null), "0x3930000000000000");
+
+        IRpcFunction subscribeStorage = api.rpcBase.state().function("subscribeStorage");
+        measure("subscribe/unsubscribe", provider, () -> subscribeStorage.invoke(
+                (Object) new Object[]{new Object[]{now, new Object[0]}}).then(result -> Promise.value(((List) result).get(0))));
+        measure("state_getStorage     ", provider, now::call);
+
+        System.exit(0);
+    }
+
+    private static void measure(String name, MockProvider provider, Read read) throws Exception {
+        for (int i = 0; i < WARMUP; i++) {
+            await(read.read());
+        }
+        // let the last unsubscribe calls go through
+        Thread.sleep(LATENCY * 10);
+        provider.resetRequestCount();
+
+        long start = System.nanoTime();
+        Object value = null;
+        for (int i = 0; i < READS; i++) {
+            value = await(read.read());
+        }
+        long elapsed = System.nanoTime() - start;
+        Thread.sleep(LATENCY * 10);
+
+        System.out.printf("%s: %d us/read, %.2f rpc/read (value %s)%n",
+                name, elapsed / READS / 1000, provider.getRequestCount() / (double) READS, value);
+    }
+
+    private static <T> T await(Promise<T> promise) throws Exception {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        promise.then(result -> {
+            future.complete(result);
+            return null;
+        })._catch(err -> {
+            future.completeExceptionally(err);
+            return null;
+        });
+        return future.get(10, TimeUnit.SECONDS);
+    }
+
+    interface Read {
+        Promise read();
+    }
+}
@@ -0,0 +1,67 @@
+package test.org.polkadot.api;
+
+import com.onehilltech.promises.Promise;
+import org.polkadot.api.SubmittableExtrinsic;
+import org.polkadot.api.promise.ApiPromise;
+import org.polkadot.rpc.provider.mock.MockProvider;
+import org.polkadot.type.extrinsics.Index;
+import org.polkadot.types.primitive.Method;
+import org.polkadot.utils.Utils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * Compares the construction of balances.transfer calls through the codecs of the arguments (the function of
+ * the metadata) against the cached encoder of the function, now used by `api.tx`.
+ */
+public class TransferConstructionBenchmark {
+
+    private static final String BOB = "5FHneW46xGXgs5mUiveU4sbTyGBzmstUspZC92UhjJM694ty";
+    private static final int WARMUP = 2000;
+    private static final int CALLS = 20000;
+
+    public static void main(String[] args) throws Exception {
+        ApiPromise api = await(ApiPromise.create(new MockProvider()));
+        Method.MethodFunction transfer = Index.extrinsics.get("balances").get("transfer");
+
+        measure("codecs        ", value -> Utils.u8aToHex(transfer.apply(BOB, value).toU8a()));
+        measure("encoder       ", value -> Utils.u8aToHex(transfer.getEncoder().method(BOB, value).toU8a()));
+        measure("encoder, bytes", value -> transfer.getEncoder().encode(BOB, value));
+        measure("api.tx        ", value -> {
+            SubmittableExtrinsic<Promise> extrinsic = api.tx().section("balances").function("transfer").call(BOB, value);
+            return extrinsic.toHex();
+        });
+
+        System.exit(0);
+    }
+
+    private static void measure(String name, IntFunction<Object> build) {
+        for (int i = 0; i < WARMUP; i++) {
+            build.apply(i);
+        }
+
+        long start = System.nanoTime();
+        Object last = null;
+        for (int i = 0; i < CALLS; i++) {
+            last = build.apply(1000 + i);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        System.out.printf("%s: %.2f us/call (last %s)%n", name, elapsed / 1000.0 / CALLS,
+                last instanceof byte[] ? ((byte[]) last).length + " bytes" : last);
+    }
+
+    private static <T> T await(Promise<T> promise) throws Exception {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        promise.then(result -> {
+            future.complete(result);
+            return null;
+        })._catch(err -> {
+            future.completeExceptionally(err);
+            return null;
+        });
+        return future.get(10, TimeUnit.SECONDS);
+    }
+}